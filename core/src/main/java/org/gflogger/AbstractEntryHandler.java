@@ -14,6 +14,7 @@
 
 package org.gflogger;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.gflogger.helpers.LogLog;
@@ -31,9 +32,24 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 
 	protected final Appender[] appenders;
 
+	// appenders which are run by the handler
+	protected final boolean[] handled;
+
 	public AbstractEntryHandler(T service, Appender[] appenders) {
+		this(service, appenders, null);
+	}
+
+	/**
+	 * @param handled appenders which are run by the handler, all of them if it is <code>null</code>
+	 */
+	public AbstractEntryHandler(T service, Appender[] appenders, boolean[] handled) {
 		this.service = service;
 		this.appenders = appenders;
+		if (handled == null) {
+			handled = new boolean[appenders.length];
+			Arrays.fill(handled, true);
+		}
+		this.handled = handled;
 	}
 
 	protected final void flushBuffer() {
@@ -42,25 +58,26 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 
 	protected void flushBuffer(boolean force) {
 		for (int i = 0; i < appenders.length; i++) {
-			appenders[i].flush(force);
+			if (handled[i]) {
+				appenders[i].flush(force);
+			}
 		}
 	}
 
 	protected final void process(LogEntryItemImpl entry) {
 		//if (!running.get()) return;
 
-		long mask = entry.getAppenderMask();
-		int idx = 0;
-		while (mask != 0L) {
-			if ((mask & 1L) != 0L) {
-				try {
-					appenders[idx].process(entry);
-				} catch (Throwable e) {
-					appenders[idx].onUncatchException(e);
-				}
+		// only the matched appenders are visited
+		final int[] indices = entry.getAppenderIndices();
+		for (int i = 0; i < indices.length; i++) {
+			final int idx = indices[i];
+			if (!handled[idx]) continue;
+			final Appender appender = appenders[idx];
+			try {
+				appender.process(entry);
+			} catch (Throwable e) {
+				appender.onUncatchException(e);
 			}
-			idx++;
-			mask >>= 1;
 		}
 	}
 
@@ -69,6 +86,7 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 
 
 		for (int i = 0; i < appenders.length; i++) {
+			if (!handled[i]) continue;
 			LogLog.debug("going to start appender " + appenders[i].getName());
 			appenders[i].start();
 		}
@@ -81,6 +99,7 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 		service.state = State.STOPPED;
 
 		for (int i = 0; i < appenders.length; i++) {
+			if (!handled[i]) continue;
 			LogLog.debug("going to stop appender " + appenders[i].getName());
 			appenders[i].stop();
 		}
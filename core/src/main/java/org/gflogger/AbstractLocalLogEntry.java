@@ -35,10 +35,14 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 	protected final ObjectFormatterFactory	formatterFactory;
 	protected final String logErrorsMessage;
 	protected final FormattingStrategy strategy;
+	protected final LogContext context;
+	protected final LogFields fields = new LogFields();
 
 	protected String categoryName;
 	protected LogLevel logLevel;
-	protected long appenderMask;
+	protected int[] appenderIndices;
+	protected CallSite callSite;
+	protected DroppedEntries droppedEntries;
 
 	protected boolean commited = true;
 	protected Throwable error;
@@ -56,6 +60,7 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 		this.loggerService = loggerService;
 		this.logErrorsMessage = logErrorsMessage;
 		this.strategy = strategy;
+		this.context = new LogContext();
 	}
 
 	public AbstractLocalLogEntry(
@@ -81,6 +86,8 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 		 * thread.getName() generates new String(char[])
 		 */
 		this.threadName = owner.getName();
+		// entry is created by the owner thread, so it refers to its context
+		this.context = owner == Thread.currentThread() ? MDC.context() : new LogContext();
 		this.formatterFactory = formatterFactory;
 		this.loggerService = loggerService;
 		this.logErrorsMessage = logErrorsMessage != null
@@ -128,13 +135,67 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 	}
 
 	@Override
-	public long getAppenderMask() {
-		return appenderMask;
+	public int[] getAppenderIndices() {
+		return appenderIndices;
 	}
 
 	@Override
-	public void setAppenderMask(long appenderMask) {
-		this.appenderMask = appenderMask;
+	public void setAppenderIndices(int[] appenderIndices) {
+		this.appenderIndices = appenderIndices;
+	}
+
+	@Override
+	public CallSite getCallSite() {
+		return callSite;
+	}
+
+	@Override
+	public void setCallSite(CallSite callSite) {
+		this.callSite = callSite;
+	}
+
+	@Override
+	public DroppedEntries getDroppedEntries() {
+		return droppedEntries;
+	}
+
+	@Override
+	public void setDroppedEntries(DroppedEntries droppedEntries) {
+		this.droppedEntries = droppedEntries;
+	}
+
+	@Override
+	public LogContext getContext() {
+		return context;
+	}
+
+	@Override
+	public LogFields getFields() {
+		return fields;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final long value) {
+		fields.add(key, value);
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final double value) {
+		fields.add(key, value);
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final boolean value) {
+		fields.add(key, value);
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final CharSequence value) {
+		fields.add(key, value);
+		return this;
 	}
 
 	@Override
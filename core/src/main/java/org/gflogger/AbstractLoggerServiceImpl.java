@@ -14,22 +14,29 @@
 
 package org.gflogger;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.disruptor.LoggerServiceImpl;
+import org.gflogger.formatter.BufferFormatter;
 import org.gflogger.helpers.LogLog;
 import org.gflogger.util.NamedThreadFactory;
 
 import static org.gflogger.formatter.BufferFormatter.allocate;
 import static org.gflogger.helpers.OptionConverter.getBooleanProperty;
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
 
 /**
  * abstract garbage-free logger service
@@ -44,10 +51,31 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 
 	protected final ThreadLocal<LocalLogEntry>			logEntryThreadLocal;
 
+	// it is set on the first scope of the thread
+	protected final ThreadLocal<Backtrace>				backtraceThreadLocal;
+	protected final int									backtraceSize;
+	private final int									backtraceMessageSize;
+
 	protected final ExecutorService						executorService;
 
+	// loggers which have dropped entries, they are reported once in the interval at most
+	private final List<DroppedEntries>					droppedEntries;
+	private final long									droppedReportInterval;
+	private final AtomicLong							nextDroppedReport;
+
 	protected final boolean								multibyte;
 
+	/*
+	 * is any of appenders' layout going to render location of the logging request
+	 */
+	protected final boolean								locationRequired;
+
+	/*
+	 * is location resolved from the stack if no call site is passed,
+	 * it is off by default as it allocates on every logging request
+	 */
+	protected final boolean								implicitLocation;
+
 	protected volatile State 							state = State.NOT_STARTED;
 
 	/**
@@ -69,6 +97,8 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 		this.loggers = loggers;
 		this.appenders = appenders;
 		this.multibyte = multibyte(appenders);
+		this.locationRequired = locationRequired(appenders);
+		this.implicitLocation = getBooleanProperty("gflogger.location.implicit", false);
 
 		// unicode char has 2 bytes
 		final int maxMessageSize0 = multibyte ? maxMessageSize << 1 : maxMessageSize;
@@ -109,6 +139,14 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 			}
 		};
 
+		this.backtraceThreadLocal = new ThreadLocal<Backtrace>();
+		this.backtraceSize = getIntProperty("gflogger.backtrace.size", 256);
+		this.backtraceMessageSize = maxMessageSize0;
+
+		this.droppedEntries = new CopyOnWriteArrayList<DroppedEntries>();
+		this.droppedReportInterval = getIntProperty("gflogger.dropped.reportInterval", 1000);
+		this.nextDroppedReport = new AtomicLong();
+
 		executorService = initExecutorService();
 	}
 
@@ -153,6 +191,18 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 		return multibyte;
 	}
 
+	protected final boolean locationRequired(final Appender ... appenders) {
+		for (int i = 0; i < appenders.length; i++) {
+			if (appenders[i] instanceof AbstractAsyncAppender) {
+				final Layout layout = ((AbstractAsyncAppender) appenders[i]).getLayout();
+				if (layout != null && layout.isLocationRequired()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	protected abstract String name();
 
 	protected abstract FormattingStrategy getFormattingStrategy();
@@ -187,28 +237,55 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 	}
 
 	@Override
-	public GFLogEntry log(final LogLevel level, final String categoryName, final long appenderMask) {
-		if (state == State.STOPPED) throw new IllegalStateException("Logger was stopped.");
+	public GFLogEntry log(final LogLevel level, final String categoryName, final int[] appenderIndices) {
+		return log(level, categoryName, null, appenderIndices);
+	}
 
-		final LocalLogEntry entry = logEntryThreadLocal.get();
+	@Override
+	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName,
+			String pattern, final int[] appenderIndices) {
+		return formattedLog(level, categoryName, null, pattern, appenderIndices);
+	}
 
-		if (!entry.isCommited()) {
-			LogLog.error("ERROR! log message '" + entry.stringValue()
-					+ "' at thread '" + entry.getThreadName() + "' has not been commited properly.");
-			entry.commit();
-		}
+	@Override
+	public GFLogEntry log(final LogLevel level, final String categoryName,
+			final CallSite callSite, final int[] appenderIndices) {
+		return localEntry(level, categoryName, callSite, appenderIndices, null);
+	}
 
-		entry.setCommited(false);
-		entry.setLogLevel(level);
-		entry.setCategoryName(categoryName);
-		entry.setAppenderMask(appenderMask);
-		entry.clear();
+	@Override
+	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName,
+			final CallSite callSite, String pattern, final int[] appenderIndices) {
+		final LocalLogEntry entry = localEntry(level, categoryName, callSite, appenderIndices, null);
+		entry.setPattern(pattern);
 		return entry;
 	}
 
 	@Override
-	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName,
-			String pattern, final long appenderMask) {
+	public GFLogEntry tryLog(final LogLevel level, final String categoryName,
+			final CallSite callSite, final int[] appenderIndices, final DroppedEntries dropped) {
+		if (!hasAvailableCapacity(level)) {
+			drop(dropped);
+			return NullLogEntry.INSTANCE;
+		}
+		return localEntry(level, categoryName, callSite, appenderIndices, dropped);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryFormattedLog(final LogLevel level, final String categoryName,
+			final CallSite callSite, final String pattern, final int[] appenderIndices,
+			final DroppedEntries dropped) {
+		if (!hasAvailableCapacity(level)) {
+			drop(dropped);
+			return NullLogEntry.INSTANCE;
+		}
+		final LocalLogEntry entry = localEntry(level, categoryName, callSite, appenderIndices, dropped);
+		entry.setPattern(pattern);
+		return entry;
+	}
+
+	private LocalLogEntry localEntry(final LogLevel level, final String categoryName,
+			final CallSite callSite, final int[] appenderIndices, final DroppedEntries dropped) {
 		if (state == State.STOPPED) throw new IllegalStateException("Logger was stopped.");
 
 		final LocalLogEntry entry = logEntryThreadLocal.get();
@@ -222,12 +299,189 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 		entry.setCommited(false);
 		entry.setLogLevel(level);
 		entry.setCategoryName(categoryName);
-		entry.setAppenderMask(appenderMask);
+		entry.setAppenderIndices(appenderIndices);
+		entry.setCallSite(callSite(callSite));
+		entry.setDroppedEntries(dropped);
+		entry.getFields().clear();
 		entry.clear();
-		entry.setPattern(pattern);
 		return entry;
 	}
 
+	/**
+	 * @return true if there is a free slot for an entry of the level in the ring
+	 */
+	protected abstract boolean hasAvailableCapacity(final LogLevel level);
+
+	/**
+	 * counts an entry which has been dropped as the ring had no free slot
+	 */
+	protected final void drop(final DroppedEntries dropped) {
+		if (dropped.drop(this)) {
+			droppedEntries.add(dropped);
+		}
+	}
+
+	/**
+	 * reports drops of loggers as warnings once in the interval at most,
+	 * it never waits and reports are postponed until there is a free slot
+	 */
+	protected final void reportDropped(final long now) {
+		final long next = nextDroppedReport.get();
+		if (now < next || droppedEntries.isEmpty()
+			|| !nextDroppedReport.compareAndSet(next, now + droppedReportInterval)) return;
+
+		for (int i = 0; i < droppedEntries.size(); i++) {
+			final DroppedEntries dropped = droppedEntries.get(i);
+			final long drops = dropped.claim();
+			if (drops == 0) continue;
+			if (dropped.getAppenderIndices().length != 0 && !tryReport(dropped, drops, now)) {
+				// the ring is still full - retry on the next commit
+				dropped.unclaim(drops);
+				nextDroppedReport.set(now);
+			}
+		}
+	}
+
+	/**
+	 * reports drops which are left before the service is stopped,
+	 * it waits for a free slot for the interval at most
+	 */
+	protected final void reportDroppedOnStop() {
+		final long now = System.currentTimeMillis();
+		final long deadline = now + droppedReportInterval;
+		nextDroppedReport.set(Long.MAX_VALUE);
+
+		for (int i = 0; i < droppedEntries.size(); i++) {
+			final DroppedEntries dropped = droppedEntries.get(i);
+			final long drops = dropped.claim();
+			if (drops == 0) continue;
+			if (dropped.getAppenderIndices().length != 0) {
+				while (!tryReport(dropped, drops, now)) {
+					if (System.currentTimeMillis() > deadline) {
+						dropped.unclaim(drops);
+						LogLog.warn("dropped entries of '" + dropped.getName() + "' have not been reported");
+						return;
+					}
+					Thread.yield();
+				}
+			}
+		}
+	}
+
+	/**
+	 * publishes a warning about drops of the logger unless the ring is full
+	 *
+	 * @return true if it is published
+	 */
+	protected abstract boolean tryReport(final DroppedEntries dropped, final long drops, final long now);
+
+	/**
+	 * populates the ring entry with a warning about drops of the logger
+	 */
+	protected final void populate(final LogEntryItemImpl entry, final DroppedEntries dropped,
+			final long drops, final long timestamp) {
+		entry.setCategoryName(dropped.getName());
+		entry.setLogLevel(LogLevel.WARN);
+		entry.setThreadName(logEntryThreadLocal.get().getThreadName());
+		entry.setTimestamp(timestamp);
+		entry.setAppenderIndices(dropped.getAppenderIndices());
+		entry.setCallSite(CallSite.UNKNOWN);
+		entry.getContext().clear();
+		entry.getFields().clear();
+
+		try {
+			if (multibyte) {
+				final CharBuffer buffer = entry.getCharBuffer();
+				buffer.clear();
+				BufferFormatter.append(buffer, "dropped ");
+				BufferFormatter.append(buffer, drops);
+				BufferFormatter.append(buffer, " entries");
+			} else {
+				final ByteBuffer buffer = entry.getBuffer();
+				buffer.clear();
+				BufferFormatter.append(buffer, "dropped ");
+				BufferFormatter.append(buffer, drops);
+				BufferFormatter.append(buffer, " entries");
+			}
+		} catch (BufferOverflowException e) {
+			// the warning is truncated by a short max message size
+		}
+	}
+
+	@Override
+	public void openScope(final LogLevel threshold) {
+		Backtrace backtrace = backtraceThreadLocal.get();
+		if (backtrace == null) {
+			backtrace = new Backtrace(initEnties(backtraceSize, backtraceMessageSize));
+			backtraceThreadLocal.set(backtrace);
+		}
+		backtrace.open(threshold);
+	}
+
+	@Override
+	public void closeScope() {
+		final Backtrace backtrace = backtraceThreadLocal.get();
+		if (backtrace != null) {
+			backtrace.close();
+		}
+	}
+
+	/**
+	 * holds the entry if it is below the threshold of the scope open on the thread,
+	 * or publishes the held entries ahead of an error
+	 *
+	 * @return true if the entry is held and must not be published
+	 */
+	protected final boolean hold(final LocalLogEntry localEntry, final long timestamp) {
+		final Backtrace backtrace = backtraceThreadLocal.get();
+		if (backtrace == null || !backtrace.isOpen()) return false;
+
+		final LogLevel level = localEntry.getLogLevel();
+		if (backtrace.holds(level)) {
+			populate(backtrace.hold(), localEntry, timestamp);
+			return true;
+		}
+		if (backtrace.releasedBy(level)) {
+			for (int i = 0; i < backtrace.size(); i++) {
+				publish(backtrace.get(i));
+			}
+			backtrace.fail();
+		}
+		return false;
+	}
+
+	/**
+	 * publishes a copy of the held entry to the ring
+	 */
+	protected abstract void publish(final LogEntryItemImpl held);
+
+	private CallSite callSite(final CallSite callSite) {
+		if (callSite != null) return callSite;
+		// walking the stack is expensive and not garbage free, do it only on demand
+		return locationRequired && implicitLocation ? CallSite.resolve() : CallSite.UNKNOWN;
+	}
+
+	/**
+	 * copies local entry into the ring entry
+	 */
+	protected final void populate(final LogEntryItemImpl entry,
+			final LocalLogEntry localEntry, final long timestamp) {
+		entry.setCategoryName(localEntry.getCategoryName());
+		entry.setLogLevel(localEntry.getLogLevel());
+		entry.setThreadName(localEntry.getThreadName());
+		entry.setTimestamp(timestamp);
+		entry.setAppenderIndices(localEntry.getAppenderIndices());
+		entry.setCallSite(localEntry.getCallSite());
+		localEntry.getContext().copyTo(entry.getContext());
+		localEntry.getFields().copyTo(entry.getFields());
+
+		if (multibyte) {
+			localEntry.copyTo(entry.getCharBuffer());
+		} else {
+			localEntry.copyTo(entry.getBuffer());
+		}
+	}
+
 	@Override
 	public final GFLogger[] lookupLoggers(String name) {
 		final List<GFLogger> candidates = new ArrayList<GFLogger>();
@@ -277,6 +531,7 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 	public void stop() {
 		state = State.STOPPED;
 		logEntryThreadLocal.remove();
+		backtraceThreadLocal.remove();
 	}
 
 }
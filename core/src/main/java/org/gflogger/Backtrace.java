@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+/**
+ * Backtrace holds entries of a thread which are below the threshold of an open scope
+ * (see {@link LoggerService#openScope(LogLevel)}) in pre-allocated off-heap entries
+ * instead of publishing them to the ring.
+ *
+ * <p>
+ * The held entries are published once an error is logged within the scope (and the
+ * rest of the scope is published as is), otherwise they are discarded when the scope
+ * is closed. Only the last entries are kept if there are more of them than the backtrace
+ * could hold. Nested scopes share the backtrace and the threshold of the outermost one.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class Backtrace {
+
+	private final LogEntryItemImpl[] entries;
+
+	private LogLevel threshold;
+	private int depth;
+	private boolean failed;
+
+	// the oldest held entry
+	private int start;
+	private int size;
+
+	private long dropped;
+
+	public Backtrace(final LogEntryItemImpl[] entries) {
+		if (entries.length == 0) throw new IllegalArgumentException("Expected at least one entry");
+		this.entries = entries;
+	}
+
+	public void open(final LogLevel threshold) {
+		if (depth++ == 0) {
+			this.threshold = threshold;
+			this.failed = false;
+			clear();
+		}
+	}
+
+	/**
+	 * @return true if the outermost scope has been closed
+	 */
+	public boolean close() {
+		if (depth == 0) return false;
+		if (--depth > 0) return false;
+		clear();
+		return true;
+	}
+
+	public boolean isOpen() {
+		return depth > 0;
+	}
+
+	/**
+	 * @return true if an entry of the level has to be held
+	 */
+	public boolean holds(final LogLevel level) {
+		return depth > 0 && !failed && threshold.greaterThan(level);
+	}
+
+	/**
+	 * @return true if an entry of the level has to release the held entries
+	 */
+	public boolean releasedBy(final LogLevel level) {
+		return depth > 0 && !LogLevel.ERROR.greaterThan(level);
+	}
+
+	/**
+	 * the rest of the scope is not held any more
+	 */
+	public void fail() {
+		failed = true;
+		clear();
+	}
+
+	/**
+	 * @return an entry to hold the next one into, the oldest entry is evicted if it is full
+	 */
+	public LogEntryItemImpl hold() {
+		if (size == entries.length) {
+			start = start + 1 == entries.length ? 0 : start + 1;
+			size--;
+			dropped++;
+		}
+		final int idx = start + size;
+		size++;
+		return entries[idx < entries.length ? idx : idx - entries.length];
+	}
+
+	/**
+	 * @return number of held entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return held entry from the oldest one
+	 */
+	public LogEntryItemImpl get(final int index) {
+		final int idx = start + index;
+		return entries[idx < entries.length ? idx : idx - entries.length];
+	}
+
+	public void clear() {
+		start = 0;
+		size = 0;
+	}
+
+	/**
+	 * @return number of entries which have been evicted by the newer ones
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+}
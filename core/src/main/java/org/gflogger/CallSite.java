@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Location of the logging request: class, method, file and line.
+ *
+ * <p>
+ * Call sites are immutable and long living, so that pattern converters are able to
+ * cache pre-encoded values per call site. The cheapest way is to declare a call site
+ * once and pass it explicitly:
+ *
+ * <pre>
+ * private static final CallSite SITE = CallSite.here();
+ * ...
+ * log.info(SITE).append("hello").commit();
+ * </pre>
+ *
+ * If no call site is passed the location is unknown (<code>?</code>) unless implicit location
+ * is enabled by <code>gflogger.location.implicit</code> - then the logger service resolves it
+ * from the stack on every call if a layout requires the location. That is much more expensive
+ * and it is not garbage free, although resolved call sites are still cached.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class CallSite {
+
+	public static final String NA = "?";
+
+	public static final CallSite UNKNOWN = new CallSite(NA, NA, NA, -1);
+
+	private static final ConcurrentMap<StackTraceElement, CallSite> SITES =
+		new ConcurrentHashMap<>();
+
+	private static final Set<String> LOGGER_CLASSES = new CopyOnWriteArraySet<>();
+
+	static {
+		addLoggerClass(CallSite.class.getName());
+		addLoggerClass(GFLogView.class.getName());
+		addLoggerClass(AbstractLoggerServiceImpl.class.getName());
+		// by name to avoid loading of optional dependencies and deprecated classes
+		addLoggerClass("org.gflogger.LoggerServiceView");
+		addLoggerClass("org.gflogger.base.LoggerServiceImpl");
+		addLoggerClass("org.gflogger.disruptor.LoggerServiceImpl");
+	}
+
+	private final String className;
+	private final String methodName;
+	private final String fileName;
+	private final int lineNumber;
+	private final String line;
+	private final String location;
+
+	public CallSite(String className, String methodName, String fileName, int lineNumber) {
+		this.className = className != null ? className : NA;
+		this.methodName = methodName != null ? methodName : NA;
+		this.fileName = fileName != null ? fileName : NA;
+		this.lineNumber = lineNumber;
+		this.line = lineNumber >= 0 ? Integer.toString(lineNumber) : NA;
+		this.location = this.className + '.' + this.methodName
+			+ '(' + this.fileName + ':' + this.line + ')';
+	}
+
+	/**
+	 * @return call site of the method which calls <code>here()</code>
+	 */
+	public static CallSite here() {
+		return resolve();
+	}
+
+	/**
+	 * frames of the given class are skipped while resolving caller location,
+	 * it is useful for facades and adapters on the top of gflogger.
+	 */
+	public static void addLoggerClass(String className) {
+		LOGGER_CLASSES.add(className);
+	}
+
+	/**
+	 * @return the first call site on the stack outside of logger classes
+	 */
+	static CallSite resolve() {
+		final StackTraceElement[] elements = new Throwable().getStackTrace();
+		for (int i = 0; i < elements.length; i++) {
+			if (!isLoggerFrame(elements[i])) {
+				return valueOf(elements[i]);
+			}
+		}
+		return UNKNOWN;
+	}
+
+	static boolean isLoggerFrame(StackTraceElement element) {
+		return LOGGER_CLASSES.contains(element.getClassName());
+	}
+
+	static CallSite valueOf(StackTraceElement element) {
+		final CallSite site = SITES.get(element);
+		if (site != null) return site;
+
+		final CallSite newSite = new CallSite(element.getClassName(),
+			element.getMethodName(), element.getFileName(), element.getLineNumber());
+		final CallSite prev = SITES.putIfAbsent(element, newSite);
+		return prev != null ? prev : newSite;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return line number as a string, or <code>?</code> if it is unknown
+	 */
+	public String getLine() {
+		return line;
+	}
+
+	/**
+	 * @return location in the form of <code>class.method(file:line)</code>
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	@Override
+	public String toString() {
+		return location;
+	}
+}
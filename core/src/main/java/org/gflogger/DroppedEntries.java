@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DroppedEntries counts entries of a logger which have been dropped by non-blocking
+ * <code>tryXXX</code> calls as the ring had no free slot. The counter is striped as
+ * the drops come from many threads at once, under the highest load.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class DroppedEntries {
+
+	private final String name;
+
+	private final LongAdder count = new LongAdder();
+
+	// the service which reports the drops
+	private final AtomicReference<LoggerService> service = new AtomicReference<>();
+
+	// appenders of warnings of the logger
+	private volatile int[] appenderIndices = GFLogger.NO_APPENDERS;
+
+	// drops which have been claimed to be reported, the commit threads
+	// and the stopping thread report concurrently
+	private final AtomicLong reported = new AtomicLong();
+
+	public DroppedEntries(final String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return a total number of dropped entries
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	int[] getAppenderIndices() {
+		return appenderIndices;
+	}
+
+	void setAppenderIndices(final int[] appenderIndices) {
+		this.appenderIndices = appenderIndices;
+	}
+
+	/**
+	 * counts a drop
+	 *
+	 * @return true if the drops have to be registered with the service
+	 */
+	boolean drop(final LoggerService loggerService) {
+		count.increment();
+		final LoggerService current = service.get();
+		return current != loggerService && service.compareAndSet(current, loggerService);
+	}
+
+	/**
+	 * claims drops since the last report, so they are reported by the calling thread only
+	 *
+	 * @return a number of claimed drops, 0 if there are none or another thread has claimed them
+	 */
+	long claim() {
+		final long from = reported.get();
+		final long drops = count.sum() - from;
+		return drops > 0 && reported.compareAndSet(from, from + drops) ? drops : 0;
+	}
+
+	/**
+	 * returns claimed drops which have not been reported, so they are claimed again
+	 */
+	void unclaim(final long drops) {
+		reported.addAndGet(-drops);
+	}
+}
@@ -17,6 +17,12 @@ package org.gflogger;
 /**
  * GFLog
  *
+ * <p>
+ * <code>tryXXX</code> methods never wait for a free slot in the ring: they return
+ * {@link NullLogEntry#INSTANCE} if the ring is full and a committed entry is dropped if
+ * the ring has been filled up meanwhile. Drops are counted per logger and they are
+ * reported as a warning once there is a free slot.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
 public interface GFLog {
@@ -27,33 +33,81 @@ public interface GFLog {
 
 	FormattedGFLogEntry trace(final String pattern);
 
+	GFLogEntry trace(final CallSite callSite);
+
+	FormattedGFLogEntry trace(final CallSite callSite, final String pattern);
+
+	GFLogEntry tryTrace();
+
+	FormattedGFLogEntry tryTrace(final String pattern);
+
 	boolean isDebugEnabled();
 
 	GFLogEntry debug();
 
 	FormattedGFLogEntry debug(final String pattern);
 
+	GFLogEntry debug(final CallSite callSite);
+
+	FormattedGFLogEntry debug(final CallSite callSite, final String pattern);
+
+	GFLogEntry tryDebug();
+
+	FormattedGFLogEntry tryDebug(final String pattern);
+
 	boolean isInfoEnabled();
 
 	GFLogEntry info();
 
 	FormattedGFLogEntry info(final String pattern);
 
+	GFLogEntry info(final CallSite callSite);
+
+	FormattedGFLogEntry info(final CallSite callSite, final String pattern);
+
+	GFLogEntry tryInfo();
+
+	FormattedGFLogEntry tryInfo(final String pattern);
+
 	boolean isWarnEnabled();
 
 	GFLogEntry warn();
 
 	FormattedGFLogEntry warn(final String pattern);
 
+	GFLogEntry warn(final CallSite callSite);
+
+	FormattedGFLogEntry warn(final CallSite callSite, final String pattern);
+
+	GFLogEntry tryWarn();
+
+	FormattedGFLogEntry tryWarn(final String pattern);
+
 	boolean isErrorEnabled();
 
 	GFLogEntry error();
 
 	FormattedGFLogEntry error(final String pattern);
 
+	GFLogEntry error(final CallSite callSite);
+
+	FormattedGFLogEntry error(final CallSite callSite, final String pattern);
+
+	GFLogEntry tryError();
+
+	FormattedGFLogEntry tryError(final String pattern);
+
 	boolean isFatalEnabled();
 
 	GFLogEntry fatal();
 
 	FormattedGFLogEntry fatal(final String pattern);
+
+	GFLogEntry fatal(final CallSite callSite);
+
+	FormattedGFLogEntry fatal(final CallSite callSite, final String pattern);
+
+	GFLogEntry tryFatal();
+
+	FormattedGFLogEntry tryFatal(final String pattern);
 }
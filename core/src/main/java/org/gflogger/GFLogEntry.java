@@ -76,6 +76,26 @@ public interface GFLogEntry extends Appendable {
 	 */
 	GFLogEntry append(Object o);
 
+	/**
+	 * adds a typed key/value field to the entry, fields are not a part of the message
+	 * but are rendered by a layout (e.g. <code>%K</code>) or accessed by appenders
+	 * via {@link LogEntryItem#getFields()}
+	 *
+	 * @param key a long living string, e.g. literal
+	 * @return a reference to this object.
+	 */
+	GFLogEntry kv(String key, long value);
+
+	GFLogEntry kv(String key, double value);
+
+	GFLogEntry kv(String key, boolean value);
+
+	/**
+	 * @see #kv(String, long)
+	 * value is copied into the entry and truncated to {@link LogFields#MAX_VALUE_LENGTH}
+	 */
+	GFLogEntry kv(String key, CharSequence value);
+
 	/**
 	 * appends last a single char
 	 * @param c char to add
@@ -88,6 +88,31 @@ public final class GFLogFactory {
 		return getFactory().get( clazz );
 	}
 
+	/**
+	 * opens a scope on the current thread, see {@link LoggerService#openScope(LogLevel)}
+	 * <pre>
+	 * GFLogFactory.openScope(LogLevel.INFO);
+	 * try {
+	 *     ...
+	 * } finally {
+	 *     GFLogFactory.closeScope();
+	 * }
+	 * </pre>
+	 */
+	public static void openScope(final LogLevel threshold) {
+		final LoggerService service = getFactory().getService();
+		if (service != null) {
+			service.openScope(threshold);
+		}
+	}
+
+	public static void closeScope() {
+		final LoggerService service = getFactory().getService();
+		if (service != null) {
+			service.closeScope();
+		}
+	}
+
 	public static void stop() {
 		final GFLogFactory factory = getFactory();
 		synchronized ( factory.lock) {
@@ -14,6 +14,8 @@
 
 package org.gflogger;
 
+import java.util.Arrays;
+
 /**
  * LoggerView
  *
@@ -24,15 +26,20 @@ public class GFLogView implements GFLog {
 	private LoggerService loggerService;
 	private LogLevel level;
 	private volatile boolean valid;
-	private final long[] appenderMask = new long[LogLevel.values.length];
+	// sorted indices of appenders per level
+	private final int[][] appenderIndices = new int[LogLevel.values.length][];
 
 	private final NullLogEntry mockLogEntry;
 
+	// drops of tryXXX calls
+	private final DroppedEntries dropped;
+
 	private final String name;
 
 	public GFLogView(final String name) {
 		this.mockLogEntry = NullLogEntry.INSTANCE;
 		this.name = name;
+		this.dropped = new DroppedEntries(name);
 	}
 
 	void invalidate() {
@@ -48,19 +55,20 @@ public class GFLogView implements GFLog {
 		for (int i = 0; i < LogLevel.values.length; i++) {
 			final LogLevel level = LogLevel.values[i];
 			final int ordinal = level.ordinal();
-			appenderMask[ordinal] = 0;
+			int[] indices = GFLogger.NO_APPENDERS;
 
 			for (final GFLogger gfLogger : loggers) {
 				final LogLevel loggerLevel = gfLogger.getLogLevel();
 				if (!loggerLevel.greaterThan(level)) {
-					final long m = gfLogger.getAppenderMask(level);
-					appenderMask[ordinal] |= m;
+					indices = union(indices, gfLogger.getAppenderIndices(level));
 					if (!gfLogger.hasAdditivity()) {
 						break;
 					}
 				}
 			}
+			appenderIndices[ordinal] = indices;
 		}
+		dropped.setAppenderIndices(appenderIndices[LogLevel.WARN.ordinal()]);
 
 		this.level = LogLevel.FATAL;
 		for (final GFLogger gfLogger : loggers) {
@@ -72,6 +80,25 @@ public class GFLogView implements GFLog {
 		return this.loggerService;
 	}
 
+	/**
+	 * @return sorted indices of both arrays without duplicates
+	 */
+	private static int[] union(final int[] a, final int[] b) {
+		if (a.length == 0) return b;
+		if (b.length == 0) return a;
+		final int[] union = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < a.length || j < b.length) {
+			final int v = j == b.length || i < a.length && a[i] <= b[j] ? a[i++] : b[j++];
+			if (k == 0 || union[k - 1] != v) {
+				union[k++] = v;
+			}
+		}
+		return k == union.length ? union : Arrays.copyOf(union, k);
+	}
+
 	private boolean hasNecessaryLevel(LogLevel level) {
 		return loggerService() != null && !this.level.greaterThan(level);
 	}
@@ -85,15 +112,36 @@ public class GFLogView implements GFLog {
 		return setLoggerService(GFLogFactory.lookupService(name));
 	}
 
-	private GFLogEntry logEntry(final LogLevel logLevel) {
+	private GFLogEntry logEntry(final LogLevel logLevel, final CallSite callSite) {
+		return hasNecessaryLevel(logLevel)
+			? loggerService.log(logLevel, name, callSite, appenderIndices[logLevel.ordinal()])
+			: mockLogEntry;
+	}
+
+	/**
+	 * @return a number of entries which have been dropped by tryXXX calls
+	 */
+	public long getDroppedEntries() {
+		return dropped.getCount();
+	}
+
+	private GFLogEntry tryLogEntry(final LogLevel logLevel) {
+		return hasNecessaryLevel(logLevel)
+			? loggerService.tryLog(logLevel, name, null, appenderIndices[logLevel.ordinal()], dropped)
+			: mockLogEntry;
+	}
+
+	private FormattedGFLogEntry tryFormattedLogEntry(final LogLevel logLevel, final String pattern) {
 		return hasNecessaryLevel(logLevel)
-			? loggerService.log(logLevel, name, appenderMask[logLevel.ordinal()])
+			? loggerService.tryFormattedLog(logLevel, name, null, pattern,
+				appenderIndices[logLevel.ordinal()], dropped)
 			: mockLogEntry;
 	}
 
-	private FormattedGFLogEntry formattedLogEntry(final LogLevel logLevel, String pattern) {
+	private FormattedGFLogEntry formattedLogEntry(final LogLevel logLevel,
+			final CallSite callSite, String pattern) {
 		return hasNecessaryLevel(logLevel)
-			? loggerService.formattedLog(logLevel, name, pattern,  appenderMask[logLevel.ordinal()])
+			? loggerService.formattedLog(logLevel, name, callSite, pattern,  appenderIndices[logLevel.ordinal()])
 			: mockLogEntry;
 	}
 
@@ -104,12 +152,32 @@ public class GFLogView implements GFLog {
 
 	@Override
 	public GFLogEntry trace() {
-		return logEntry(LogLevel.TRACE);
+		return logEntry(LogLevel.TRACE, null);
 	}
 
 	@Override
 	public FormattedGFLogEntry trace(String pattern) {
-		return formattedLogEntry(LogLevel.TRACE, pattern);
+		return formattedLogEntry(LogLevel.TRACE, null, pattern);
+	}
+
+	@Override
+	public GFLogEntry trace(CallSite callSite) {
+		return logEntry(LogLevel.TRACE, callSite);
+	}
+
+	@Override
+	public FormattedGFLogEntry trace(CallSite callSite, String pattern) {
+		return formattedLogEntry(LogLevel.TRACE, callSite, pattern);
+	}
+
+	@Override
+	public GFLogEntry tryTrace() {
+		return tryLogEntry(LogLevel.TRACE);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryTrace(String pattern) {
+		return tryFormattedLogEntry(LogLevel.TRACE, pattern);
 	}
 
 	@Override
@@ -119,12 +187,32 @@ public class GFLogView implements GFLog {
 
 	@Override
 	public GFLogEntry debug() {
-		return logEntry(LogLevel.DEBUG);
+		return logEntry(LogLevel.DEBUG, null);
 	}
 
 	@Override
 	public FormattedGFLogEntry debug(String pattern) {
-		return formattedLogEntry(LogLevel.DEBUG, pattern);
+		return formattedLogEntry(LogLevel.DEBUG, null, pattern);
+	}
+
+	@Override
+	public GFLogEntry debug(CallSite callSite) {
+		return logEntry(LogLevel.DEBUG, callSite);
+	}
+
+	@Override
+	public FormattedGFLogEntry debug(CallSite callSite, String pattern) {
+		return formattedLogEntry(LogLevel.DEBUG, callSite, pattern);
+	}
+
+	@Override
+	public GFLogEntry tryDebug() {
+		return tryLogEntry(LogLevel.DEBUG);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryDebug(String pattern) {
+		return tryFormattedLogEntry(LogLevel.DEBUG, pattern);
 	}
 
 	@Override
@@ -134,12 +222,32 @@ public class GFLogView implements GFLog {
 
 	@Override
 	public GFLogEntry info() {
-		return logEntry(LogLevel.INFO);
+		return logEntry(LogLevel.INFO, null);
 	}
 
 	@Override
 	public FormattedGFLogEntry info(String pattern) {
-		return formattedLogEntry(LogLevel.INFO, pattern);
+		return formattedLogEntry(LogLevel.INFO, null, pattern);
+	}
+
+	@Override
+	public GFLogEntry info(CallSite callSite) {
+		return logEntry(LogLevel.INFO, callSite);
+	}
+
+	@Override
+	public FormattedGFLogEntry info(CallSite callSite, String pattern) {
+		return formattedLogEntry(LogLevel.INFO, callSite, pattern);
+	}
+
+	@Override
+	public GFLogEntry tryInfo() {
+		return tryLogEntry(LogLevel.INFO);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryInfo(String pattern) {
+		return tryFormattedLogEntry(LogLevel.INFO, pattern);
 	}
 
 	@Override
@@ -149,12 +257,32 @@ public class GFLogView implements GFLog {
 
 	@Override
 	public GFLogEntry warn() {
-		return logEntry(LogLevel.WARN);
+		return logEntry(LogLevel.WARN, null);
 	}
 
 	@Override
 	public FormattedGFLogEntry warn(String pattern) {
-		return formattedLogEntry(LogLevel.WARN, pattern);
+		return formattedLogEntry(LogLevel.WARN, null, pattern);
+	}
+
+	@Override
+	public GFLogEntry warn(CallSite callSite) {
+		return logEntry(LogLevel.WARN, callSite);
+	}
+
+	@Override
+	public FormattedGFLogEntry warn(CallSite callSite, String pattern) {
+		return formattedLogEntry(LogLevel.WARN, callSite, pattern);
+	}
+
+	@Override
+	public GFLogEntry tryWarn() {
+		return tryLogEntry(LogLevel.WARN);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryWarn(String pattern) {
+		return tryFormattedLogEntry(LogLevel.WARN, pattern);
 	}
 
 	@Override
@@ -164,12 +292,32 @@ public class GFLogView implements GFLog {
 
 	@Override
 	public GFLogEntry error() {
-		return logEntry(LogLevel.ERROR);
+		return logEntry(LogLevel.ERROR, null);
 	}
 
 	@Override
 	public FormattedGFLogEntry error(String pattern) {
-		return formattedLogEntry(LogLevel.ERROR, pattern);
+		return formattedLogEntry(LogLevel.ERROR, null, pattern);
+	}
+
+	@Override
+	public GFLogEntry error(CallSite callSite) {
+		return logEntry(LogLevel.ERROR, callSite);
+	}
+
+	@Override
+	public FormattedGFLogEntry error(CallSite callSite, String pattern) {
+		return formattedLogEntry(LogLevel.ERROR, callSite, pattern);
+	}
+
+	@Override
+	public GFLogEntry tryError() {
+		return tryLogEntry(LogLevel.ERROR);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryError(String pattern) {
+		return tryFormattedLogEntry(LogLevel.ERROR, pattern);
 	}
 
 	@Override
@@ -179,11 +327,31 @@ public class GFLogView implements GFLog {
 
 	@Override
 	public GFLogEntry fatal() {
-		return logEntry(LogLevel.FATAL);
+		return logEntry(LogLevel.FATAL, null);
 	}
 
 	@Override
 	public FormattedGFLogEntry fatal(String pattern) {
-		return formattedLogEntry(LogLevel.FATAL, pattern);
+		return formattedLogEntry(LogLevel.FATAL, null, pattern);
+	}
+
+	@Override
+	public GFLogEntry fatal(CallSite callSite) {
+		return logEntry(LogLevel.FATAL, callSite);
+	}
+
+	@Override
+	public FormattedGFLogEntry fatal(CallSite callSite, String pattern) {
+		return formattedLogEntry(LogLevel.FATAL, callSite, pattern);
+	}
+
+	@Override
+	public GFLogEntry tryFatal() {
+		return tryLogEntry(LogLevel.FATAL);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryFatal(String pattern) {
+		return tryFormattedLogEntry(LogLevel.FATAL, pattern);
 	}
 }
@@ -23,11 +23,16 @@ public interface GFLogger {
 
 	static final GFLogger[] EMPTY = new GFLogger[0];
 
+	static final int[] NO_APPENDERS = new int[0];
+
 	LogLevel getLogLevel();
 
 	String getCategory();
 
-	long getAppenderMask(final LogLevel level);
+	/**
+	 * @return sorted indices of appenders of the level
+	 */
+	int[] getAppenderIndices(final LogLevel level);
 
 	boolean hasAdditivity();
 
@@ -128,7 +128,7 @@ public final class GFLoggerBuilder {
 	private static final class GFLoggerFinal implements GFLogger {
 		private final LogLevel	logLevel;
 		private final String	category;
-		private final long		mask;
+		private final int[]		indices;
 		private final boolean	additivity;
 
 		public GFLoggerFinal(
@@ -137,39 +137,37 @@ public final class GFLoggerBuilder {
 			boolean additivity,
 			AppenderFactory ... appenderFactories
 		) {
-			this(logLevel, category, additivity, mask(appenderFactories));
+			this(logLevel, category, additivity, indices(appenderFactories));
 		}
 
 		private GFLoggerFinal(
 			LogLevel logLevel,
 			String category,
 			boolean additivity,
-			long mask
+			int[] indices
 		) {
 			this.logLevel = logLevel;
 			this.category = category;
 			this.additivity = additivity;
-			this.mask = mask;
+			this.indices = indices;
 		}
 
-		private static long mask(AppenderFactory ... appenderFactories) {
-			long mask = 0;
-			for (final AppenderFactory appenderFactory : appenderFactories) {
-				final int idx = appenderFactory.getIndex();
+		private static int[] indices(AppenderFactory ... appenderFactories) {
+			final int[] indices = new int[appenderFactories.length];
+			for (int i = 0; i < appenderFactories.length; i++) {
+				final int idx = appenderFactories[i].getIndex();
 				if (idx < 0) {
 					throw new IllegalArgumentException("Negative indeces are not supported.");
 				}
-				if (idx >= Long.SIZE) {
-					throw new IllegalArgumentException("Index " + idx
-						+ " is too large. Max value:" + (Long.SIZE - 1));
-				}
-				final int appenderMask = 1 << idx;
-				if ((mask & appenderMask) != 0) {
-					throw new IllegalArgumentException("Duplicate index " + idx);
+				indices[i] = idx;
+			}
+			Arrays.sort(indices);
+			for (int i = 1; i < indices.length; i++) {
+				if (indices[i] == indices[i - 1]) {
+					throw new IllegalArgumentException("Duplicate index " + indices[i]);
 				}
-				mask |= appenderMask;
 			}
-			return mask;
+			return indices;
 		}
 
 		@Override
@@ -188,8 +186,8 @@ public final class GFLoggerBuilder {
 		}
 
 		@Override
-		public long getAppenderMask(final LogLevel level) {
-			return !this.logLevel.greaterThan(level) ? mask : 0;
+		public int[] getAppenderIndices(final LogLevel level) {
+			return !this.logLevel.greaterThan(level) ? indices : NO_APPENDERS;
 		}
 
 		@Override
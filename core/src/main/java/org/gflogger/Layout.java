@@ -19,6 +19,13 @@ import java.nio.CharBuffer;
 
 /**
  * Extend this abstract class to create your own log layout format.
+ *
+ * <p>
+ * An entry is formatted by several consumers at once, so its buffers are not flipped
+ * and they must be only read: the message is in <code>[0, position)</code> of
+ * {@link LogEntryItem#getBuffer()} (or of the char buffer in multibyte mode) and it is
+ * copied through own views of a layout (see {@link org.gflogger.formatter.BufferViews}):
+ * <code>buffer.put(item.getBuffer())</code> copies nothing.
  * 
  * @author Ceki G&uuml;lc&uuml;
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
@@ -79,4 +86,13 @@ public abstract class Layout {
 	 */
 	public abstract boolean ignoresThrowable();
 
+	/**
+	 * If the layout renders location of the logging request it should return
+	 * <code>true</code>, in that case logger service captures a {@link CallSite}
+	 * if it is not passed explicitly. The base class returns <code>false</code>.
+	 */
+	public boolean isLocationRequired() {
+		return false;
+	}
+
 }
@@ -31,13 +31,32 @@ public interface LocalLogEntry extends GFLogEntry, FormattedGFLogEntry {
 
 	void setPattern(final String pattern);
 
-	void setAppenderMask(final long mask);
+	/**
+	 * @param indices sorted indices of appenders the entry goes to, the array is shared
+	 */
+	void setAppenderIndices(final int[] indices);
+
+	void setCallSite(final CallSite callSite);
 
 	String getCategoryName();
 
 	String getThreadName();
 
-	long getAppenderMask();
+	int[] getAppenderIndices();
+
+	CallSite getCallSite();
+
+	/**
+	 * @return drops of the logger if the entry must not wait for a free slot,
+	 *         <code>null</code> otherwise
+	 */
+	DroppedEntries getDroppedEntries();
+
+	void setDroppedEntries(final DroppedEntries droppedEntries);
+
+	LogContext getContext();
+
+	LogFields getFields();
 
 	<T extends Buffer> void copyTo(T buffer);
 
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Garbage-free storage of the context values ({@link MDC}): every registered key
+ * has a slot for a primitive or a char sequence value, char sequences are copied
+ * (and truncated to {@link MDC#MAX_VALUE_LENGTH}) into the slot.
+ *
+ * <p>
+ * Each thread has its own context which is copied into the ring entry at commit time.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class LogContext extends TypedValues {
+
+	private long mask;
+
+	public LogContext() {
+		super(MDC.MAX_KEYS, MDC.MAX_VALUE_LENGTH);
+	}
+
+	public boolean isEmpty() {
+		return mask == 0;
+	}
+
+	public boolean isSet(final int key) {
+		return (mask & (1L << key)) != 0;
+	}
+
+	public boolean isLong(final int key) {
+		return isSet(key) && types[key] == LONG;
+	}
+
+	public boolean isDouble(final int key) {
+		return isSet(key) && types[key] == DOUBLE;
+	}
+
+	public boolean isBoolean(final int key) {
+		return isSet(key) && types[key] == BOOLEAN;
+	}
+
+	public boolean isCharSequence(final int key) {
+		return isSet(key) && types[key] == CHARS;
+	}
+
+	void put(final int key, final long value) {
+		set(key, value);
+		mask |= 1L << key;
+	}
+
+	void put(final int key, final double value) {
+		set(key, value);
+		mask |= 1L << key;
+	}
+
+	void put(final int key, final boolean value) {
+		set(key, value);
+		mask |= 1L << key;
+	}
+
+	void put(final int key, final CharSequence value) {
+		if (value == null) {
+			remove(key);
+			return;
+		}
+		set(key, value);
+		mask |= 1L << key;
+	}
+
+	void remove(final int key) {
+		mask &= ~(1L << key);
+	}
+
+	void clear() {
+		mask = 0;
+	}
+
+	/**
+	 * copies all set values into the given context
+	 */
+	public void copyTo(final LogContext context) {
+		context.mask = mask;
+		for (long m = mask; m != 0; m &= m - 1) {
+			final int key = Long.numberOfTrailingZeros(m);
+			copy(key, context, key);
+		}
+	}
+
+	@Override
+	public int size(final int key) {
+		return isSet(key) ? super.size(key) : 0;
+	}
+
+	@Override
+	public void append(final ByteBuffer buffer, final int key) {
+		if (isSet(key)) super.append(buffer, key);
+	}
+
+	@Override
+	public void append(final CharBuffer buffer, final int key) {
+		if (isSet(key)) super.append(buffer, key);
+	}
+}
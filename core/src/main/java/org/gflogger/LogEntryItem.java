@@ -34,6 +34,21 @@ public interface LogEntryItem {
 
 	long getTimestamp();
 
+	/**
+	 * @return location of the logging request, {@link CallSite#UNKNOWN} if it is not captured
+	 */
+	CallSite getCallSite();
+
+	/**
+	 * @return values of {@link MDC} at the moment of commit
+	 */
+	LogContext getContext();
+
+	/**
+	 * @return typed key/value fields of the entry
+	 */
+	LogFields getFields();
+
 	ByteBuffer getBuffer();
 
 	CharBuffer getCharBuffer();
@@ -18,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 
 import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.formatter.BufferViews;
 import org.gflogger.ring.Publishable;
 
 import static org.gflogger.formatter.BufferFormatter.allocate;
@@ -38,7 +39,7 @@ public final class LogEntryItemImpl extends AbstractLocalLogEntry implements Log
 	private LogLevel logLevel;
 	private long timestamp;
 	private String threadName;
-	private long appenderMask;
+	private int[] appenderIndices;
 	private long	sequence;
 
 	public LogEntryItemImpl(final int size, final FormattingStrategy strategy) {
@@ -110,13 +111,13 @@ public final class LogEntryItemImpl extends AbstractLocalLogEntry implements Log
 	}
 
 	@Override
-	public long getAppenderMask() {
-		return appenderMask;
+	public int[] getAppenderIndices() {
+		return appenderIndices;
 	}
 
 	@Override
-	public void setAppenderMask(long appenderMask) {
-		this.appenderMask = appenderMask;
+	public void setAppenderIndices(int[] appenderIndices) {
+		this.appenderIndices = appenderIndices;
 	}
 
 	@Override
@@ -140,6 +141,55 @@ public final class LogEntryItemImpl extends AbstractLocalLogEntry implements Log
 		((ByteBuffer)buffer).put(this.buffer);
 	}
 
+	/**
+	 * copies the entry which is owned by the calling thread (e.g. a held one of
+	 * a {@link Backtrace}) into another one
+	 */
+	public void copyTo(final LogEntryItemImpl entry) {
+		copyAttributesTo(entry);
+
+		if (charBuffer != null) {
+			final int position = charBuffer.position();
+			charBuffer.flip();
+			entry.charBuffer.clear();
+			entry.charBuffer.put(charBuffer);
+			charBuffer.limit(charBuffer.capacity()).position(position);
+		} else {
+			final int position = buffer.position();
+			buffer.flip();
+			entry.buffer.clear();
+			entry.buffer.put(buffer);
+			buffer.limit(buffer.capacity()).position(position);
+		}
+	}
+
+	/**
+	 * copies the entry which could be read by other consumers at the same time
+	 * (e.g. an entry of the ring) into another one through own views of the reader
+	 */
+	public void copyTo(final LogEntryItemImpl entry, final BufferViews views) {
+		copyAttributesTo(entry);
+
+		if (charBuffer != null) {
+			entry.charBuffer.clear();
+			views.put(entry.charBuffer, charBuffer, charBuffer.position());
+		} else {
+			entry.buffer.clear();
+			views.put(entry.buffer, buffer, buffer.position());
+		}
+	}
+
+	private void copyAttributesTo(final LogEntryItemImpl entry) {
+		entry.setCategoryName(categoryName);
+		entry.setLogLevel(logLevel);
+		entry.setThreadName(threadName);
+		entry.setTimestamp(timestamp);
+		entry.setAppenderIndices(appenderIndices);
+		entry.setCallSite(callSite);
+		getContext().copyTo(entry.getContext());
+		getFields().copyTo(entry.getFields());
+	}
+
 	@Override
 	protected void moveAndAppendSilent(String message) {
 		final int length = message.length();
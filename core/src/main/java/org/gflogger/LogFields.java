@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+
+/**
+ * Typed key/value fields of a log entry ({@link GFLogEntry#kv(String, long)} and so on)
+ * in the order they have been added. Keys are expected to be long living strings
+ * (e.g. literals), they are stored by reference.
+ *
+ * <p>
+ * Fields over {@link #MAX_FIELDS} are ignored, char sequence values are truncated to
+ * {@link #MAX_VALUE_LENGTH}.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class LogFields extends TypedValues {
+
+	public static final int MAX_FIELDS = getIntProperty("gflogger.fields.maxCount", 16);
+
+	public static final int MAX_VALUE_LENGTH = getIntProperty("gflogger.fields.maxValueLength", 64);
+
+	private final String[] keys = new String[MAX_FIELDS];
+	private int count;
+
+	public LogFields() {
+		super(MAX_FIELDS, MAX_VALUE_LENGTH);
+	}
+
+	/**
+	 * @return number of fields
+	 */
+	public int size() {
+		return count;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public String getKey(final int idx) {
+		return keys[idx];
+	}
+
+	/**
+	 * @return index of the first field with the given key or <code>-1</code>
+	 */
+	public int indexOf(final String key) {
+		for (int i = 0; i < count; i++) {
+			final String k = keys[i];
+			if (k == key || k.equals(key)) return i;
+		}
+		return -1;
+	}
+
+	boolean add(final String key, final long value) {
+		if (count == MAX_FIELDS || key == null) return false;
+		set(count, value);
+		keys[count++] = key;
+		return true;
+	}
+
+	boolean add(final String key, final double value) {
+		if (count == MAX_FIELDS || key == null) return false;
+		set(count, value);
+		keys[count++] = key;
+		return true;
+	}
+
+	boolean add(final String key, final boolean value) {
+		if (count == MAX_FIELDS || key == null) return false;
+		set(count, value);
+		keys[count++] = key;
+		return true;
+	}
+
+	boolean add(final String key, final CharSequence value) {
+		if (count == MAX_FIELDS || key == null) return false;
+		set(count, value != null ? value : "null");
+		keys[count++] = key;
+		return true;
+	}
+
+	void clear() {
+		count = 0;
+	}
+
+	public void copyTo(final LogFields fields) {
+		fields.count = count;
+		for (int i = 0; i < count; i++) {
+			fields.keys[i] = keys[i];
+			copy(i, fields, i);
+		}
+	}
+}
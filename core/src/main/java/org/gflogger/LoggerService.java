@@ -23,13 +23,45 @@ public interface LoggerService {
 
 	LogLevel getLevel();
 
-	GFLogEntry log(final LogLevel level, final String categoryName, final long appenderMask);
+	GFLogEntry log(final LogLevel level, final String categoryName, final int[] appenderIndices);
 
 	FormattedGFLogEntry formattedLog(final LogLevel level, final String categoryName,
-		final String pattern, final long appenderMask);
+		final String pattern, final int[] appenderIndices);
+
+	GFLogEntry log(final LogLevel level, final String categoryName,
+		final CallSite callSite, final int[] appenderIndices);
+
+	FormattedGFLogEntry formattedLog(final LogLevel level, final String categoryName,
+		final CallSite callSite, final String pattern, final int[] appenderIndices);
+
+	/**
+	 * never waits for a free slot: it returns {@link NullLogEntry#INSTANCE} if the ring is full,
+	 * and the committed entry is dropped if the ring has been filled up meanwhile,
+	 * drops are counted by <code>dropped</code> and reported as a warning later on
+	 */
+	GFLogEntry tryLog(final LogLevel level, final String categoryName,
+		final CallSite callSite, final int[] appenderIndices, final DroppedEntries dropped);
+
+	/**
+	 * @see #tryLog(LogLevel, String, CallSite, int[], DroppedEntries)
+	 */
+	FormattedGFLogEntry tryFormattedLog(final LogLevel level, final String categoryName,
+		final CallSite callSite, final String pattern, final int[] appenderIndices,
+		final DroppedEntries dropped);
 
 	void entryFlushed(final LocalLogEntry localEntry);
 
+	/**
+	 * opens a scope on the current thread: entries below the threshold are held
+	 * by the thread and published only if an error is logged within the scope
+	 */
+	void openScope(final LogLevel threshold);
+
+	/**
+	 * closes the scope on the current thread, the held entries are discarded
+	 */
+	void closeScope();
+
 	void stop();
 
 	GFLogger[] lookupLoggers(String name);
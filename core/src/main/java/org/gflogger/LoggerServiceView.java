@@ -17,8 +17,8 @@ public class LoggerServiceView implements LoggerService {
 	}
 
 	@Override
-	public GFLogEntry log(LogLevel level, String categoryName, final long appenderMask) {
-		return service.log(level, categoryName, appenderMask);
+	public GFLogEntry log(LogLevel level, String categoryName, final int[] appenderIndices) {
+		return service.log(level, categoryName, appenderIndices);
 	}
 
 	@Override
@@ -26,9 +26,49 @@ public class LoggerServiceView implements LoggerService {
 		final LogLevel level,
 		final String categoryName,
 		final String pattern,
-		final long appenderMask
+		final int[] appenderIndices
 	) {
-		return service.formattedLog(level, categoryName, pattern, appenderMask);
+		return service.formattedLog(level, categoryName, pattern, appenderIndices);
+	}
+
+	@Override
+	public GFLogEntry log(LogLevel level, String categoryName, CallSite callSite,
+		final int[] appenderIndices) {
+		return service.log(level, categoryName, callSite, appenderIndices);
+	}
+
+	@Override
+	public FormattedGFLogEntry formattedLog(
+		final LogLevel level,
+		final String categoryName,
+		final CallSite callSite,
+		final String pattern,
+		final int[] appenderIndices
+	) {
+		return service.formattedLog(level, categoryName, callSite, pattern, appenderIndices);
+	}
+
+	@Override
+	public GFLogEntry tryLog(
+		final LogLevel level,
+		final String categoryName,
+		final CallSite callSite,
+		final int[] appenderIndices,
+		final DroppedEntries dropped
+	) {
+		return service.tryLog(level, categoryName, callSite, appenderIndices, dropped);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryFormattedLog(
+		final LogLevel level,
+		final String categoryName,
+		final CallSite callSite,
+		final String pattern,
+		final int[] appenderIndices,
+		final DroppedEntries dropped
+	) {
+		return service.tryFormattedLog(level, categoryName, callSite, pattern, appenderIndices, dropped);
 	}
 
 	@Override
@@ -36,6 +76,16 @@ public class LoggerServiceView implements LoggerService {
 		service.entryFlushed(localEntry);
 	}
 
+	@Override
+	public void openScope(LogLevel threshold) {
+		service.openScope(threshold);
+	}
+
+	@Override
+	public void closeScope() {
+		service.closeScope();
+	}
+
 	@Override
 	public GFLogger[] lookupLoggers(String name) {
 		return service.lookupLoggers(name);
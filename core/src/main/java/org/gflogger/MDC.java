@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.gflogger.helpers.LogLog;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+
+/**
+ * Mapped diagnostic context: thread local values which are attached to every log
+ * entry of the thread at commit time and could be rendered via <code>%X{key}</code>.
+ *
+ * <p>
+ * Keys are registered once (up to {@link #MAX_KEYS}), values are stored in the
+ * pre-allocated slots of the thread's {@link LogContext}, so that setting and
+ * clearing of values does not allocate.
+ *
+ * <pre>
+ * MDC.put("orderId", orderId);
+ * try {
+ *     log.info().append("order is accepted").commit();
+ * } finally {
+ *     MDC.remove("orderId");
+ * }
+ * </pre>
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class MDC {
+
+	public static final int MAX_KEYS = Math.min(64, getIntProperty("gflogger.mdc.maxKeys", 16));
+
+	public static final int MAX_VALUE_LENGTH = getIntProperty("gflogger.mdc.maxValueLength", 64);
+
+	private static final ConcurrentMap<String, Integer> KEYS = new ConcurrentHashMap<>();
+	private static final String[] NAMES = new String[MAX_KEYS];
+	private static volatile int size;
+
+	private static final ThreadLocal<LogContext> CONTEXT = new ThreadLocal<LogContext>() {
+		@Override
+		protected LogContext initialValue() {
+			return new LogContext();
+		}
+	};
+
+	private MDC() {
+	}
+
+	/**
+	 * registers the key (if it is not registered yet)
+	 *
+	 * @return an index of the key or <code>-1</code> if there are too many keys
+	 */
+	public static int key(final String name) {
+		final Integer key = KEYS.get(name);
+		return key != null ? key : register(name);
+	}
+
+	private static synchronized int register(final String name) {
+		final Integer key = KEYS.get(name);
+		if (key != null) return key;
+
+		if (size == MAX_KEYS) {
+			LogLog.warn("MDC key '" + name + "' is ignored: there are already " + MAX_KEYS
+				+ " keys, consider to increase gflogger.mdc.maxKeys");
+			return -1;
+		}
+		final int idx = size;
+		NAMES[idx] = name;
+		KEYS.put(name, idx);
+		size = idx + 1;
+		return idx;
+	}
+
+	/**
+	 * @return number of registered keys
+	 */
+	public static int size() {
+		return size;
+	}
+
+	/**
+	 * @return name of the key with the given index
+	 */
+	public static String name(final int key) {
+		return NAMES[key];
+	}
+
+	/**
+	 * @return context of the current thread
+	 */
+	public static LogContext context() {
+		return CONTEXT.get();
+	}
+
+	public static void put(final String key, final long value) {
+		put(key(key), value);
+	}
+
+	public static void put(final String key, final double value) {
+		put(key(key), value);
+	}
+
+	public static void put(final String key, final boolean value) {
+		put(key(key), value);
+	}
+
+	public static void put(final String key, final CharSequence value) {
+		put(key(key), value);
+	}
+
+	public static void put(final int key, final long value) {
+		if (key >= 0) CONTEXT.get().put(key, value);
+	}
+
+	public static void put(final int key, final double value) {
+		if (key >= 0) CONTEXT.get().put(key, value);
+	}
+
+	public static void put(final int key, final boolean value) {
+		if (key >= 0) CONTEXT.get().put(key, value);
+	}
+
+	public static void put(final int key, final CharSequence value) {
+		if (key >= 0) CONTEXT.get().put(key, value);
+	}
+
+	public static void remove(final String key) {
+		remove(key(key));
+	}
+
+	public static void remove(final int key) {
+		if (key >= 0) CONTEXT.get().remove(key);
+	}
+
+	public static void clear() {
+		CONTEXT.get().clear();
+	}
+}
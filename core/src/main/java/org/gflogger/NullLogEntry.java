@@ -31,6 +31,26 @@ public class NullLogEntry implements GFLogEntry, FormattedGFLogEntry {
 		return this;
 	}
 
+	@Override
+	public GFLogEntry kv(final String key, final long value) {
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final double value) {
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final boolean value) {
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(final String key, final CharSequence value) {
+		return this;
+	}
+
 	@Override
 	public GFLogEntry append(final CharSequence csq) {
 		return this;
@@ -117,8 +117,8 @@ import org.gflogger.helpers.PatternParser;
  * <b>%C{1}</b> will output "SomeClass".
  *
  * <p>
- * <b>WARNING</b> Generating the caller class information is slow. Thus, it's
- * use should be avoided unless execution speed is not an issue.
+ * <b>WARNING</b> Unless a {@link CallSite} is passed explicitly the caller
+ * location is resolved from the stack on every call which is slow.
  *
  * </td>
  * </tr>
@@ -156,12 +156,24 @@ import org.gflogger.helpers.PatternParser;
  * <td>Used to output the file name where the logging request was issued.
  *
  * <p>
- * <b>WARNING</b> Generating caller location information is extremely slow. It's
- * use should be avoided unless execution speed is not an issue.
+ * <b>WARNING</b> Unless a {@link CallSite} is passed explicitly the caller
+ * location is resolved from the stack on every call which is slow.
  *
  * </tr>
  *
  * <tr>
+ * <td align=center><b>K</b></td>
+ *
+ * <td>
+ * Used to output the key/value fields of the logging event
+ * (see {@link GFLogEntry#kv(String, long)}). The <b>K</b> conversion character
+ * could be followed by the key placed between braces, as in <b>%K{orderId}</b>,
+ * to output a value of the field. Without a key all fields are output
+ * in the order they have been added as <code>key1=value1 key2=value2</code>.
+ * </td>
+ * </tr>
+ *
+ * <tr>
  * <td align=center><b>l</b></td>
  *
  * <td>Used to output location information of the caller which generated the
@@ -173,9 +185,8 @@ import org.gflogger.helpers.PatternParser;
  * callers source the file name and line number between parentheses.
  *
  * <p>
- * The location information can be very useful. However, it's generation is
- * <em>extremely</em> slow. It's use should be avoided unless execution speed is
- * not an issue.
+ * The location information can be very useful. Unless a {@link CallSite} is
+ * passed explicitly it is resolved from the stack on every call which is slow.
  *
  * </td>
  * </tr>
@@ -186,8 +197,8 @@ import org.gflogger.helpers.PatternParser;
  * <td>Used to output the line number from where the logging request was issued.
  *
  * <p>
- * <b>WARNING</b> Generating caller location information is extremely slow. It's
- * use should be avoided unless execution speed is not an issue.
+ * <b>WARNING</b> Unless a {@link CallSite} is passed explicitly the caller
+ * location is resolved from the stack on every call which is slow.
  *
  * </tr>
  *
@@ -204,8 +215,8 @@ import org.gflogger.helpers.PatternParser;
  * <td>Used to output the method name where the logging request was issued.
  *
  * <p>
- * <b>WARNING</b> Generating caller location information is extremely slow. It's
- * use should be avoided unless execution speed is not an issue.
+ * <b>WARNING</b> Unless a {@link CallSite} is passed explicitly the caller
+ * location is resolved from the stack on every call which is slow.
  *
  * </tr>
  *
@@ -260,9 +271,10 @@ import org.gflogger.helpers.PatternParser;
  * <p>
  * Used to output the MDC (mapped diagnostic context) associated with the thread
  * that generated the logging event. The <b>X</b> conversion character
- * <em>must</em> be followed by the key for the map placed between braces, as in
+ * could be followed by the key for the map placed between braces, as in
  * <b>%X{clientNumber}</b> where <code>clientNumber</code> is the key. The value
- * in the MDC corresponding to the key will be output.
+ * in the MDC corresponding to the key will be output. Without a key all set
+ * values are output as <code>{key1=value1, key2=value2}</code>.
  * </p>
  *
  * <p>
@@ -500,6 +512,14 @@ public class PatternLayout extends Layout {
 		return true;
 	}
 
+	@Override
+	public boolean isLocationRequired() {
+		for (PatternConverter c = head; c != null; c = c.next) {
+			if (c.isLocationRequired()) return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Returns PatternParser used to parse the conversion string. Subclasses may
 	 * override this to return a subclass of PatternParser which recognize
@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import org.gflogger.formatter.BufferFormatter;
+
+/**
+ * Garbage-free pre-allocated slots of typed values: every slot holds a long, a double,
+ * a boolean or a char sequence which is copied (and truncated to the max value length)
+ * into the slot.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public abstract class TypedValues {
+
+	public static final byte NONE		= 0;
+	public static final byte LONG		= 1;
+	public static final byte DOUBLE		= 2;
+	public static final byte BOOLEAN	= 3;
+	public static final byte CHARS		= 4;
+
+	// enough for any double
+	private static final int MAX_DOUBLE_LENGTH = 32;
+
+	protected final int maxValueLength;
+	protected final byte[] types;
+	// long, double bits or boolean
+	protected final long[] values;
+	protected final int[] lengths;
+	// it is allocated on the first char sequence value
+	protected char[] chars;
+	private CharSequenceView[] views;
+
+	protected TypedValues(final int slots, final int maxValueLength) {
+		this.maxValueLength = maxValueLength;
+		this.types = new byte[slots];
+		this.values = new long[slots];
+		this.lengths = new int[slots];
+	}
+
+	public byte getType(final int slot) {
+		return types[slot];
+	}
+
+	public long getLong(final int slot) {
+		return values[slot];
+	}
+
+	public double getDouble(final int slot) {
+		return Double.longBitsToDouble(values[slot]);
+	}
+
+	public boolean getBoolean(final int slot) {
+		return values[slot] != 0;
+	}
+
+	/**
+	 * @return a reusable view of the value, it is valid till the next change of the slot
+	 */
+	public CharSequence getCharSequence(final int slot) {
+		if (views == null) {
+			views = new CharSequenceView[types.length];
+		}
+		CharSequenceView view = views[slot];
+		if (view == null) {
+			view = views[slot] = new CharSequenceView(slot);
+		}
+		return view;
+	}
+
+	protected final void set(final int slot, final long value) {
+		types[slot] = LONG;
+		values[slot] = value;
+	}
+
+	protected final void set(final int slot, final double value) {
+		types[slot] = DOUBLE;
+		values[slot] = Double.doubleToRawLongBits(value);
+	}
+
+	protected final void set(final int slot, final boolean value) {
+		types[slot] = BOOLEAN;
+		values[slot] = value ? 1 : 0;
+	}
+
+	protected final void set(final int slot, final CharSequence value) {
+		final int length = Math.min(value.length(), maxValueLength);
+		final int offset = offset(slot);
+		for (int i = 0; i < length; i++) {
+			chars[offset + i] = value.charAt(i);
+		}
+		types[slot] = CHARS;
+		lengths[slot] = length;
+	}
+
+	/**
+	 * copies the slot into the target one, the values are only read as they could be
+	 * changed by another thread at the same time (e.g. a lossy consumer copies a ring entry)
+	 */
+	protected final void copy(final int slot, final TypedValues target, final int targetSlot) {
+		final byte type = types[slot];
+		target.types[targetSlot] = type;
+		if (type == CHARS) {
+			final char[] chars = this.chars;
+			if (chars == null) {
+				target.types[targetSlot] = NONE;
+				return;
+			}
+			final int length = Math.min(lengths[slot], target.maxValueLength);
+			System.arraycopy(chars, slot * maxValueLength, target.chars(), target.offset(targetSlot), length);
+			target.lengths[targetSlot] = length;
+		} else {
+			target.values[targetSlot] = values[slot];
+		}
+	}
+
+	private int offset(final int slot) {
+		chars();
+		return slot * maxValueLength;
+	}
+
+	private char[] chars() {
+		if (chars == null) {
+			chars = new char[types.length * maxValueLength];
+		}
+		return chars;
+	}
+
+	/**
+	 * @return max number of chars (bytes) required to render the value
+	 */
+	public int size(final int slot) {
+		switch (types[slot]) {
+		case LONG:
+			return BufferFormatter.numberOfDigits(values[slot]);
+		case DOUBLE:
+			return MAX_DOUBLE_LENGTH;
+		case BOOLEAN:
+			return values[slot] != 0 ? 4 : 5;
+		case CHARS:
+			return lengths[slot];
+		default:
+			return 0;
+		}
+	}
+
+	public void append(final ByteBuffer buffer, final int slot) {
+		switch (types[slot]) {
+		case LONG:
+			BufferFormatter.append(buffer, values[slot]);
+			break;
+		case DOUBLE:
+			BufferFormatter.append(buffer, getDouble(slot));
+			break;
+		case BOOLEAN:
+			BufferFormatter.append(buffer, values[slot] != 0);
+			break;
+		case CHARS:
+			final int offset = slot * maxValueLength;
+			final int length = lengths[slot];
+			for (int i = 0; i < length; i++) {
+				buffer.put((byte) chars[offset + i]);
+			}
+			break;
+		}
+	}
+
+	public void append(final CharBuffer buffer, final int slot) {
+		switch (types[slot]) {
+		case LONG:
+			BufferFormatter.append(buffer, values[slot]);
+			break;
+		case DOUBLE:
+			BufferFormatter.append(buffer, getDouble(slot));
+			break;
+		case BOOLEAN:
+			BufferFormatter.append(buffer, values[slot] != 0);
+			break;
+		case CHARS:
+			buffer.put(chars, slot * maxValueLength, lengths[slot]);
+			break;
+		}
+	}
+
+	private final class CharSequenceView implements CharSequence {
+		private final int slot;
+
+		CharSequenceView(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public int length() {
+			return types[slot] == CHARS ? lengths[slot] : 0;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length()) {
+				throw new IndexOutOfBoundsException("index: " + index);
+			}
+			return chars[slot * maxValueLength + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return length() > 0 ? new String(chars, slot * maxValueLength, length()) : "";
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package org.gflogger.appender;
 
+import java.util.Locale;
+
 import org.gflogger.Appender;
 import org.gflogger.LogEntryItemImpl;
 import org.gflogger.LogLevel;
@@ -11,6 +13,29 @@ import org.gflogger.helpers.LogLog;
  */
 public abstract class AbstractAppender implements Appender<LogEntryItemImpl> {
 
+	/**
+	 * which thread the appender is run by (it is supported by the disruptor based service)
+	 */
+	public enum Consumer {
+		/**
+		 * the consumer thread which is shared by all such appenders
+		 */
+		SHARED,
+		/**
+		 * an own consumer thread, the ring does not wrap till it has processed an entry
+		 */
+		DEDICATED,
+		/**
+		 * an own consumer thread which could lag behind the ring, entries which have been
+		 * overwritten before it has reached them are dropped
+		 */
+		LOSSY;
+
+		public static Consumer forName(final String name) {
+			return name == null || name.isEmpty() ? SHARED : valueOf(name.toUpperCase(Locale.ENGLISH));
+		}
+	}
+
 	protected final LogLevel logLevel;
 
 	protected final boolean enabled;
@@ -19,6 +44,8 @@ public abstract class AbstractAppender implements Appender<LogEntryItemImpl> {
 
 	protected final String name;
 
+	protected Consumer consumer = Consumer.SHARED;
+
 	protected AbstractAppender(
 		final String name,
 		final boolean multibyte,
@@ -51,6 +78,14 @@ public abstract class AbstractAppender implements Appender<LogEntryItemImpl> {
 		return enabled;
 	}
 
+	public Consumer getConsumer() {
+		return consumer;
+	}
+
+	public void setConsumer(final Consumer consumer) {
+		this.consumer = consumer;
+	}
+
 	@Override
 	public void onUncatchException(final Throwable e) {
 		LogLog.error("Unhandled exception in " + Thread.currentThread().getName() + " :" + e.getMessage(), e);
@@ -45,6 +45,8 @@ public abstract class AbstractAppenderFactory<A extends Appender> implements App
 	protected int bufferedIOThreshold;
 	protected long awaitTimeout;
 	protected boolean enabled;
+	protected String consumer;
+	protected int formatWorkers;
 	protected int index;
 
 	public AbstractAppenderFactory() {
@@ -60,6 +62,8 @@ public abstract class AbstractAppenderFactory<A extends Appender> implements App
 		immediateFlush = getBooleanProperty("gflogger.immediateFlush", false);
 		bufferedIOThreshold = getIntProperty("gflogger.bufferedIOThreshold", 100);
 		awaitTimeout = getIntProperty("gflogger.awaitTimeout", 10);
+		consumer = getStringProperty("gflogger.consumer", "shared");
+		formatWorkers = getIntProperty("gflogger.formatWorkers", 0);
 		enabled = true;
 	}
 
@@ -169,6 +173,22 @@ public abstract class AbstractAppenderFactory<A extends Appender> implements App
 		this.enabled = enabled;
 	}
 
+	public String getConsumer() {
+		return consumer;
+	}
+
+	public void setConsumer(String consumer) {
+		this.consumer = consumer;
+	}
+
+	public int getFormatWorkers() {
+		return formatWorkers;
+	}
+
+	public void setFormatWorkers(int formatWorkers) {
+		this.formatWorkers = formatWorkers;
+	}
+
 	@Override
 	public int getIndex() {
 		return index;
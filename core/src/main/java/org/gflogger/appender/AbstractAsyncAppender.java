@@ -37,12 +37,17 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 
 	// inner thread buffer
 	protected final CharBuffer	charBuffer;
-	protected final ByteBuffer	byteBuffer;
+	// it could be swapped by subclasses, e.g. to hand the full buffer to another thread
+	protected ByteBuffer		byteBuffer;
 
 	protected Layout			layout;
 	protected boolean			immediateFlush		= false;
 	protected int				bufferedIOThreshold	= 100;
 	protected long				awaitTimeout		= 10L;
+	protected int				formatWorkers		= 0;
+
+	// an entry formatted ahead by a formatting worker, see #process(LogEntryItemImpl, ByteBuffer)
+	private ByteBuffer			formatted;
 
 	// runtime changing properties
 
@@ -77,6 +82,10 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 			: null;
 	}
 
+	public Layout getLayout() {
+		return layout;
+	}
+
 	public void setLayout(final Layout layout) {
 		this.layout = layout;
 	}
@@ -97,15 +106,25 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 		this.awaitTimeout = awaitTimeout;
 	}
 
+	public int getFormatWorkers() {
+		return formatWorkers;
+	}
+
+	/**
+	 * @param formatWorkers a number of workers which format entries ahead of the consumer,
+	 *        it is supported by the disruptor based service for single byte appenders only
+	 */
+	public void setFormatWorkers(final int formatWorkers) {
+		this.formatWorkers = formatWorkers;
+	}
+
 	@Override
 	public void process(LogEntryItemImpl entry) {
 		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
 
+		// the entry is read by all consumers at once, so that it is never flipped:
+		// layouts copy the message without changing position of the entry buffer
 		if (multibyte) {
-			final CharBuffer buffer = entry.getCharBuffer();
-			final int position0 = buffer.position();
-			final int limit0 = buffer.limit();
-
 			final int position = charBuffer.position();
 			final int limit = charBuffer.limit();
 			final int size = layout.size(entry);
@@ -114,39 +133,63 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 				charBuffer.clear();
 			}
 
-			buffer.flip();
-
 			layout.format(charBuffer, entry);
 
-			buffer.limit(limit0).position(position0);
-
 			processCharBuffer();
+		} else if (formatted != null) {
+			ensureCapacity(formatted.remaining()).put(formatted);
 		} else {
-			final ByteBuffer buffer = entry.getBuffer();
-
-			final int position0 = buffer.position();
-			final int limit0 = buffer.limit();
-
-			final int position = byteBuffer.position();
-			final int limit = byteBuffer.limit();
 			final int size = layout.size(entry);
-			if (position + size >= limit) {
-				flush();
-				byteBuffer.clear();
-			}
+			final ByteBuffer target = ensureCapacity(size);
 
-			buffer.flip();
+			layout.format(target, entry);
+		}
+	}
 
-			layout.format(byteBuffer, entry);
+	/**
+	 * processes an entry which has been already formatted by the layout into <code>formatted</code>
+	 * (e.g. by a formatting worker), it is expected to be called by the consumer thread
+	 */
+	public void process(final LogEntryItemImpl entry, final ByteBuffer formatted) {
+		this.formatted = formatted;
+		try {
+			process(entry);
+		} finally {
+			this.formatted = null;
+		}
+	}
 
-			buffer.limit(limit0).position(position0);
+	/**
+	 * @return a buffer with at least <code>size</code> bytes remaining the entry is formatted into
+	 */
+	protected ByteBuffer ensureCapacity(final int size) {
+		if (byteBuffer.position() + size >= byteBuffer.limit()) {
+			flush();
+			byteBuffer.clear();
 		}
+		return byteBuffer;
 	}
 
 	protected void processCharBuffer() {
 		// empty
 	}
 
+	/**
+	 * appends already formatted bytes (e.g. a history dumped by {@link FlightRecorderAppender})
+	 * as they are, it is expected to be called by the consumer thread
+	 */
+	public void append(final ByteBuffer bytes) {
+		final int limit = bytes.limit();
+		final int chunk = byteBuffer.capacity() >> 1;
+		while (bytes.hasRemaining()) {
+			final int size = Math.min(bytes.remaining(), chunk);
+			final ByteBuffer target = ensureCapacity(size);
+			bytes.limit(bytes.position() + size);
+			target.put(bytes);
+			bytes.limit(limit);
+		}
+	}
+
 	@Override
 	public void flush() {
 		flush(true);
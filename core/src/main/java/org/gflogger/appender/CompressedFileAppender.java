@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.gflogger.Layout;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+
+/**
+ * CompressedFileAppender compresses the formatted stream in independent deflate blocks:
+ * the buffer is a block, it is compressed once it has no space for the next entry or
+ * on flush, so that an entry never spans two blocks.
+ *
+ * <p>
+ * Every block in the file is prefixed by its compressed and uncompressed lengths
+ * (big-endian ints), the index file <code>fileName.idx</code> has the file offset
+ * and the timestamp of the first entry of every block (big-endian longs), so that
+ * a {@link Reader} could seek to a time without decompressing the file from the start.
+ *
+ * <p>
+ * The deflater and the arrays are reused across blocks. Compression is done on the
+ * consumer thread, thus a writer thread, segments, preallocation and sync are not
+ * supported.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class CompressedFileAppender extends FileAppender {
+
+	public static final String INDEX_SUFFIX = ".idx";
+
+	protected int compressionLevel = Deflater.BEST_SPEED;
+
+	private Deflater deflater;
+	private byte[] input;
+	private byte[] output;
+	private final ByteBuffer blockHeader = ByteBuffer.allocate(8);
+	private ByteBuffer blockBody;
+	private final ByteBuffer[] block = new ByteBuffer[2];
+	private final ByteBuffer indexEntry = ByteBuffer.allocate(16);
+	private final ByteBuffer[] indexEntries = {indexEntry};
+
+	private FileChannel indexChannel;
+	// length of the compressed file
+	private long offset;
+	// timestamp of the first entry of the current block, -1 if the block is empty
+	private long firstTimestamp = -1;
+
+	private volatile long blocks;
+	private volatile long rawBytes;
+	private volatile long compressedBytes;
+
+	public CompressedFileAppender(
+		final int blockSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(blockSize, multibyte, logLevel, enabled);
+	}
+
+	public CompressedFileAppender(
+		final int blockSize,
+		final Layout layout,
+		final String filename,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(blockSize, layout, filename, multibyte, logLevel, enabled);
+	}
+
+	public void setCompressionLevel(final int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	public long getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * @return number of bytes before compression
+	 */
+	public long getRawBytes() {
+		return rawBytes;
+	}
+
+	/**
+	 * @return number of compressed bytes including block headers
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	@Override
+	public void start() {
+		bufferCount = 1;
+		segments = 1;
+		preallocate = 0;
+		sync = Sync.NONE;
+
+		deflater = new Deflater(compressionLevel, true);
+		input = new byte[byteBuffer.capacity()];
+		// deflate expands incompressible data by 5 bytes per stored block of 16K at most
+		// (zlib's deflateBound is n + n/4096 + n/16384 + n/2^25 + 13), n/8 + 64 covers it
+		output = new byte[input.length + (input.length >> 3) + 64];
+		blockBody = ByteBuffer.wrap(output);
+		block[0] = blockHeader;
+		block[1] = blockBody;
+
+		super.start();
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
+		final long timestamp = entry.getTimestamp();
+		if (firstTimestamp < 0) {
+			firstTimestamp = timestamp;
+		}
+		super.process(entry);
+		// the previous block has been stored and the entry starts the new one
+		if (firstTimestamp < 0) {
+			firstTimestamp = timestamp;
+		}
+	}
+
+	@Override
+	protected boolean store(final String cause) {
+		final int length = byteBuffer.position();
+		if (length == 0) return false;
+
+		byteBuffer.flip();
+		byteBuffer.get(input, 0, length);
+		byteBuffer.clear();
+
+		deflater.reset();
+		deflater.setInput(input, 0, length);
+		deflater.finish();
+		int compressed = 0;
+		while (!deflater.finished()) {
+			if (compressed == output.length) {
+				// it is not expected as the output is larger than the deflate bound
+				throw new IllegalStateException("Block of " + length + " bytes does not fit "
+					+ output.length + " bytes once it is compressed at " + getName());
+			}
+			compressed += deflater.deflate(output, compressed, output.length - compressed);
+		}
+
+		blockHeader.clear();
+		blockHeader.putInt(compressed).putInt(length).flip();
+		blockBody.limit(compressed).position(0);
+
+		indexEntry.clear();
+		indexEntry.putLong(offset).putLong(firstTimestamp).flip();
+
+		write(channel, block, block.length);
+		write(indexChannel, indexEntries, 1);
+
+		offset += blockHeader.capacity() + compressed;
+		firstTimestamp = -1;
+		blocks++;
+		rawBytes += length;
+		compressedBytes += blockHeader.capacity() + compressed;
+		return true;
+	}
+
+	@Override
+	protected void createFileChannel() throws FileNotFoundException {
+		// compressed data could end with zeros, they are not trimmed
+		final File file = createFolder();
+		channel = new FileOutputStream(file, append).getChannel();
+		indexChannel = new FileOutputStream(fileName + INDEX_SUFFIX, append).getChannel();
+		try {
+			offset = channel.size();
+		} catch (final IOException e) {
+			offset = 0;
+		}
+	}
+
+	@Override
+	protected void closeFile() {
+		super.closeFile();
+		closeChannel(indexChannel);
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		super.stop();
+		deflater.end();
+	}
+
+	@Override
+	public String getName() {
+		return "compressedFile:" + fileName;
+	}
+
+	/**
+	 * Reads blocks of a compressed file, e.g.
+	 * <pre>
+	 * try (Reader reader = new Reader(file)) {
+	 *     reader.seek(from);
+	 *     for (byte[] block; (block = reader.nextBlock()) != null;) {
+	 *         ...
+	 *     }
+	 * }
+	 * </pre>
+	 */
+	public static final class Reader implements Closeable {
+
+		private final RandomAccessFile file;
+		private final long[] offsets;
+		private final long[] timestamps;
+		private final Inflater inflater = new Inflater(true);
+
+		public Reader(final File file) throws IOException {
+			this.file = new RandomAccessFile(file, "r");
+
+			final File index = new File(file.getPath() + INDEX_SUFFIX);
+			final int count = index.exists() ? (int) (index.length() / 16) : 0;
+			offsets = new long[count];
+			timestamps = new long[count];
+			if (count > 0) {
+				try (DataInputStream in = new DataInputStream(new FileInputStream(index))) {
+					for (int i = 0; i < count; i++) {
+						offsets[i] = in.readLong();
+						timestamps[i] = in.readLong();
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return number of indexed blocks
+		 */
+		public int getBlockCount() {
+			return offsets.length;
+		}
+
+		/**
+		 * positions the reader to the last block which starts not after the given time
+		 * (or to the first block)
+		 */
+		public void seek(final long timestamp) throws IOException {
+			int low = 0;
+			int high = timestamps.length - 1;
+			int found = 0;
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				if (timestamps[mid] <= timestamp) {
+					found = mid;
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			file.seek(offsets.length > 0 ? offsets[found] : 0);
+		}
+
+		/**
+		 * @return the next decompressed block or <code>null</code> at the end of the file
+		 */
+		public byte[] nextBlock() throws IOException {
+			final int compressed;
+			final int length;
+			try {
+				compressed = file.readInt();
+				length = file.readInt();
+			} catch (final EOFException e) {
+				return null;
+			}
+			final byte[] data = new byte[compressed];
+			file.readFully(data);
+
+			final byte[] block = new byte[length];
+			inflater.reset();
+			inflater.setInput(data);
+			try {
+				int inflated = 0;
+				while (inflated < length && !inflater.finished()) {
+					final int n = inflater.inflate(block, inflated, length - inflated);
+					if (n == 0 && inflater.needsInput()) break;
+					inflated += n;
+				}
+				if (inflated != length) {
+					throw new IOException("Corrupted block: " + inflated + " of " + length + " bytes");
+				}
+			} catch (final DataFormatException e) {
+				throw new IOException("Corrupted block: " + e.getMessage(), e);
+			}
+			return block;
+		}
+
+		@Override
+		public void close() throws IOException {
+			inflater.end();
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.util.zip.Deflater;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+
+/**
+ * CompressedFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class CompressedFileAppenderFactory extends FileAppenderFactory<CompressedFileAppender> {
+
+	// the buffer of the appender is a block
+	protected int blockSize = getIntProperty("gflogger.compressed.blockSize", 1 << 16);
+	protected int compressionLevel = getIntProperty("gflogger.compressed.level", Deflater.BEST_SPEED);
+
+	@Override
+	public CompressedFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final CompressedFileAppender appender = super.createAppender(loggerServiceClass);
+		appender.setCompressionLevel(compressionLevel);
+		return appender;
+	}
+
+	@Override
+	protected CompressedFileAppender createAppender() {
+		return new CompressedFileAppender(blockSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public int getCompressionLevel() {
+		return this.compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+}
@@ -15,14 +15,29 @@
 package org.gflogger.appender;
 
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
 
 import org.gflogger.LogLevel;
 import org.gflogger.helpers.LogLog;
 
 /**
- * ConsoleAppender
+ * ConsoleAppender writes either into an {@link Appendable} char by char or,
+ * being created with a channel (e.g. {@link #stdout()}), the whole formatted buffer
+ * with a bulk write into the channel. Multibyte output is encoded with the
+ * default charset in the latter case.
+ *
+ * <p>
+ * The channel of the standard output bypasses {@link System#out} and its lock;
+ * <code>System.out</code> is flushed before every write to keep the order with
+ * its other users, but a stream set by {@link System#setOut} is not used.
  *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
@@ -32,6 +47,22 @@ public class ConsoleAppender extends AbstractAsyncAppender {
 
 	private final Appendable out;
 	private final Flushable flushable;
+	private final WritableByteChannel channel;
+	private CharsetEncoder encoder;
+
+	/**
+	 * @return a channel of the standard output file descriptor
+	 */
+	public static WritableByteChannel stdout() {
+		return new FileOutputStream(FileDescriptor.out).getChannel();
+	}
+
+	/**
+	 * @return a channel of the standard error file descriptor
+	 */
+	public static WritableByteChannel stderr() {
+		return new FileOutputStream(FileDescriptor.err).getChannel();
+	}
 
 	public ConsoleAppender(
 		final LogLevel logLevel,
@@ -66,6 +97,7 @@ public class ConsoleAppender extends AbstractAsyncAppender {
 		super(NAME, multibyte, logLevel, enabled);
 		this.out = out;
 		this.flushable =  (out instanceof Flushable) ? (Flushable) out : null;
+		this.channel = null;
 	}
 
 	public ConsoleAppender(
@@ -78,6 +110,33 @@ public class ConsoleAppender extends AbstractAsyncAppender {
 		super(NAME,bufferSize,multibyte,logLevel, enabled);
 		this.out = out;
 		this.flushable = (out instanceof Flushable) ? (Flushable) out : null;
+		this.channel = null;
+	}
+
+	/**
+	 * @param out a stream which is flushed before every write into the channel to keep
+	 * the order of the output, it could be <code>null</code>
+	 */
+	public ConsoleAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled,
+		final WritableByteChannel channel,
+		final Flushable out
+	) {
+		super(NAME,bufferSize,multibyte,logLevel, enabled);
+		this.out = null;
+		this.flushable = out;
+		this.channel = channel;
+	}
+
+	@Override
+	public void start() {
+		if (multibyte && channel != null) {
+			encoder = Charset.defaultCharset().newEncoder();
+		}
+		super.start();
 	}
 
 	@Override
@@ -88,7 +147,9 @@ public class ConsoleAppender extends AbstractAsyncAppender {
 	@Override
 	public void flush(boolean force) {
 		if (!(force || immediateFlush)) return;
-		if (multibyte) {
+		if (channel != null) {
+			flushChannel();
+		} else if (multibyte) {
 			if (charBuffer.position() > 0) {
 				charBuffer.flip();
 				try {
@@ -123,6 +184,43 @@ public class ConsoleAppender extends AbstractAsyncAppender {
 		}
 	}
 
+	private void flushChannel() {
+		try {
+			if (multibyte) {
+				if (charBuffer.position() == 0) return;
+				charBuffer.flip();
+				if (flushable != null) flushable.flush();
+				// the byte buffer could be not enough to encode all chars at once
+				for (CoderResult result = CoderResult.OVERFLOW; result.isOverflow();) {
+					result = encoder.encode(charBuffer, byteBuffer, true);
+					write(byteBuffer);
+				}
+				encoder.reset();
+			} else {
+				if (byteBuffer.position() == 0) return;
+				if (flushable != null) flushable.flush();
+				write(byteBuffer);
+			}
+		} catch (IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		} finally {
+			if (charBuffer != null) charBuffer.clear();
+			byteBuffer.clear();
+		}
+	}
+
+	private void write(final ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			buffer.clear();
+		}
+	}
+
 	@Override
 	public String getName() {
 		return "console";
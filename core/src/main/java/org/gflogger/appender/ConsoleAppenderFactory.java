@@ -14,6 +14,10 @@
 
 package org.gflogger.appender;
 
+import static org.gflogger.helpers.OptionConverter.getBooleanProperty;
+
+import java.io.Flushable;
+
 import org.gflogger.LoggerService;
 
 
@@ -26,6 +30,13 @@ public class ConsoleAppenderFactory extends AbstractAppenderFactory<ConsoleAppen
 
 	protected Appendable outputStream = System.out;
 
+	/**
+	 * whether {@link System#out} and {@link System#err} are replaced with a bulk write
+	 * into the channel of their file descriptor, it is off by default as streams set
+	 * by {@link System#setOut} (e.g. captured by IDE or tests) would be bypassed
+	 */
+	protected boolean direct = getBooleanProperty("gflogger.console.direct", false);
+
 	@Override
 	public ConsoleAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
 		preinit(loggerServiceClass);
@@ -35,11 +46,22 @@ public class ConsoleAppenderFactory extends AbstractAppenderFactory<ConsoleAppen
 		appender.setImmediateFlush(immediateFlush);
 		appender.setBufferedIOThreshold(bufferedIOThreshold);
 		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
 
 		return appender;
 	}
 
 	protected ConsoleAppender createAppender() {
+		if (direct && (outputStream == System.out || outputStream == System.err)) {
+			return new ConsoleAppender(
+					bufferSize,
+					multibyte,
+					logLevel, enabled,
+					outputStream == System.out ? ConsoleAppender.stdout() : ConsoleAppender.stderr(),
+					(Flushable) outputStream
+			);
+		}
 		return new ConsoleAppender(
 				bufferSize,
 				multibyte,
@@ -58,4 +80,12 @@ public class ConsoleAppenderFactory extends AbstractAppenderFactory<ConsoleAppen
 		this.outputStream = outputStream;
 	}
 
+	public boolean isDirect() {
+		return this.direct;
+	}
+
+	public void setDirect(boolean direct) {
+		this.direct = direct;
+	}
+
 }
@@ -14,9 +14,12 @@
 
 package org.gflogger.appender;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
@@ -26,12 +29,17 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.gflogger.Layout;
 import org.gflogger.LogEntryItemImpl;
 import org.gflogger.LogLevel;
 import org.gflogger.PatternLayout;
 import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NamedThreadFactory;
 
 /**
  * DailyRollingFileAppender extends {@link FileAppender} so that the underlying
@@ -131,6 +139,13 @@ import org.gflogger.helpers.LogLog;
  * option. The text before the colon is interpeted as the protocol specificaion
  * of a URL which is probably not what you want.
  *
+ * <p>
+ * The next file is created and opened in the background <b>PrepareAhead</b> millis
+ * before the rollover time, so that the consumer thread only swaps the channels at the
+ * rollover time; closing and renaming of the files are done in the background as well.
+ * If the next file is not ready (or files could not be renamed while they are open,
+ * as on Windows) the rollover is done inline.
+ *
  * @author Eirik Lygre
  * @author Ceki G&uuml;lc&uuml;
  * @author Vladimir Dolzhenko
@@ -190,6 +205,20 @@ public class DailyRollingFileAppender extends FileAppender {
 
 	Troubles checkPeriod = Troubles.TOP_OF_TROUBLE;
 
+	/**
+	 * How long before the rollover time the next file is prepared.
+	 */
+	private long prepareAhead = 10000L;
+
+	private final boolean renameOpenFiles =
+		!System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH).startsWith("windows");
+
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> prepareFuture;
+
+	// the next file prepared in the background
+	private volatile NextFile nextFile;
+
 	// The utcTimeZone is used only in computeCheckPeriod() method.
 	static final TimeZone utcTimeZone = TimeZone.getTimeZone("UTC");
 
@@ -256,6 +285,14 @@ public class DailyRollingFileAppender extends FileAppender {
 		return datePattern;
 	}
 
+	public long getPrepareAhead() {
+		return prepareAhead;
+	}
+
+	public void setPrepareAhead(long prepareAhead) {
+		this.prepareAhead = prepareAhead;
+	}
+
 	@Override
 	protected void createFileChannel() throws FileNotFoundException {
 		super.createFileChannel();
@@ -297,6 +334,10 @@ public class DailyRollingFileAppender extends FileAppender {
 	// GMT (the epoch).
 
 	Troubles computeCheckPeriod() {
+		return computeCheckPeriod(datePattern);
+	}
+
+	static Troubles computeCheckPeriod(final String datePattern) {
 		RollingCalendar rollingCalendar = new RollingCalendar(utcTimeZone,
 				Locale.getDefault());
 		// set sate to 1970-01-01 00:00:00 GMT
@@ -374,20 +415,124 @@ public class DailyRollingFileAppender extends FileAppender {
 	public void process(LogEntryItemImpl entry) {
 		long n = entry.getTimestamp();
 		if (n >= nextCheck) {
-			now.setTime(n);
-			nextCheck = rc.getNextCheckMillis(now);
-			try {
-				rollOver();
-			} catch (IOException ioe) {
-				if (ioe instanceof InterruptedIOException) {
-					Thread.currentThread().interrupt();
+			final NextFile next = nextFile;
+			nextFile = null;
+			if (next != null && next.rollTime == nextCheck && n < next.nextCheck) {
+				switchTo(next);
+			} else {
+				discard(next);
+				now.setTime(n);
+				nextCheck = rc.getNextCheckMillis(now);
+				try {
+					rollOver();
+				} catch (IOException ioe) {
+					if (ioe instanceof InterruptedIOException) {
+						Thread.currentThread().interrupt();
+					}
+					LogLog.error("rollOver() failed.", ioe);
 				}
-				LogLog.error("rollOver() failed.", ioe);
+				prepareNextFile();
 			}
 		}
 		super.process(entry);
 	}
 
+	/**
+	 * the consumer side of the rollover: flushes the buffer into the current file
+	 * and swaps channels, the rest is done in the background
+	 */
+	private void switchTo(final NextFile next) {
+		store("rollOver");
+		// the rolled channel is closed in the background
+		awaitWrites();
+
+		final FileChannel rolledChannel = channel;
+		final long rolledLength = filePosition;
+		final String rolledFilename = scheduledFilename;
+
+		channel = next.channel;
+		channelOpened(0);
+		scheduledFilename = next.scheduledFilename;
+		nextCheck = next.nextCheck;
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				closeChannel(rolledChannel, rolledLength);
+				rename(fileName, rolledFilename);
+				rename(next.file.getPath(), fileName);
+			}
+		});
+		prepareNextFile();
+	}
+
+	private void rename(final String from, final String to) {
+		try {
+			Files.move(Paths.get(from), Paths.get(to), StandardCopyOption.REPLACE_EXISTING);
+			LogLog.info("Renamed [" + from + "] to [" + to + "]");
+		} catch (Exception e) {
+			LogLog.error("Failed to rename [" + from + "] to [" + to + "]: ", e);
+		}
+	}
+
+	/**
+	 * schedules the next file to be created <code>prepareAhead</code> millis
+	 * before the rollover
+	 */
+	private void prepareNextFile() {
+		if (executor == null) return;
+		final long rollTime = nextCheck;
+		final long delay = Math.max(0, rollTime - prepareAhead - System.currentTimeMillis());
+		final SimpleDateFormat sdf = (SimpleDateFormat) this.sdf.clone();
+		final RollingCalendar rc = (RollingCalendar) this.rc.clone();
+		prepareFuture = executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				final Date date = new Date(rollTime);
+				final File file = new File(fileName + ".next");
+				try {
+					final FileChannel channel = new FileOutputStream(file, false).getChannel();
+					nextFile = new NextFile(rollTime, rc.getNextCheckMillis(date),
+						fileName + sdf.format(date), file, channel);
+					LogLog.debug("Prepared [" + file + "] for rollover at " + date);
+				} catch (IOException e) {
+					LogLog.error("Failed to prepare [" + file + "]: ", e);
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void discard(final NextFile next) {
+		if (next == null) return;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				closeChannel(next.channel);
+				next.file.delete();
+			}
+		});
+	}
+
+	boolean isNextFilePrepared() {
+		return nextFile != null;
+	}
+
+	private static final class NextFile {
+		final long rollTime;
+		final long nextCheck;
+		final String scheduledFilename;
+		final File file;
+		final FileChannel channel;
+
+		NextFile(long rollTime, long nextCheck, String scheduledFilename, File file, FileChannel channel) {
+			this.rollTime = rollTime;
+			this.nextCheck = nextCheck;
+			this.scheduledFilename = scheduledFilename;
+			this.file = file;
+			this.channel = channel;
+		}
+	}
+
 	@Override
 	public void start() {
 		now.setTime(System.currentTimeMillis());
@@ -408,6 +553,34 @@ public class DailyRollingFileAppender extends FileAppender {
 		rc.setType(type);
 
 		super.start();
+
+		if (renameOpenFiles && type != Troubles.TOP_OF_TROUBLE) {
+			nextCheck = rc.getNextCheckMillis(now);
+			executor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("gflogger-rollover"));
+			prepareNextFile();
+		}
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		if (executor == null) return;
+		// the next file is not required any more, but let the pending renames finish
+		prepareFuture.cancel(false);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		executor = null;
+
+		final NextFile next = nextFile;
+		nextFile = null;
+		if (next != null) {
+			closeChannel(next.channel);
+			next.file.delete();
+		}
 	}
 
 	/**
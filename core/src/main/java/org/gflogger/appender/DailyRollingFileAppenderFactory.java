@@ -31,6 +31,11 @@ public class DailyRollingFileAppenderFactory extends FileAppenderFactory<DailyRo
 	 */
 	protected String datePattern = getStringProperty("gflogger.rolling.pattern", "'.'yyyy-MM-dd");
 
+	/**
+	 * How long (in millis) before the rollover the next file is prepared.
+	 */
+	protected long prepareAhead = Long.parseLong(getStringProperty("gflogger.rolling.prepareAhead", "10000"));
+
 	@Override
 	public DailyRollingFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
 		preinit(loggerServiceClass);
@@ -40,12 +45,20 @@ public class DailyRollingFileAppenderFactory extends FileAppenderFactory<DailyRo
 		appender.setImmediateFlush(immediateFlush);
 		appender.setBufferedIOThreshold(bufferedIOThreshold);
 		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
 
 		appender.setFileName(fileName);
 		appender.setCodepage(codepage);
 		appender.setAppend(append);
+		appender.setBufferCount(bufferCount);
+		appender.setSegments(segments);
+		appender.setSync(FileAppender.Sync.forName(sync));
+		appender.setSyncInterval(syncInterval);
+		appender.setPreallocate(preallocate);
 
 		appender.setDatePattern(datePattern);
+		appender.setPrepareAhead(prepareAhead);
 
 		return appender;
 	}
@@ -69,4 +82,12 @@ public class DailyRollingFileAppenderFactory extends FileAppenderFactory<DailyRo
 		this.datePattern = datePattern;
 	}
 
+	public long getPrepareAhead() {
+		return this.prepareAhead;
+	}
+
+	public void setPrepareAhead(long prepareAhead) {
+		this.prepareAhead = prepareAhead;
+	}
+
 }
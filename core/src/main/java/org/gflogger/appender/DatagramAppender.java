@@ -0,0 +1,378 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * DatagramAppender sends formatted entries to <b>Host</b>:<b>Port</b> over UDP,
+ * it is meant for high volume logs which could tolerate a loss.
+ *
+ * <p>
+ * Records are packed into a datagram of up to <b>PacketSize</b> bytes (it is 1472 by
+ * default, the payload of a single ethernet frame), the datagram is sent right from
+ * the direct buffer once the next record does not fit it or on flush. A record which
+ * is longer than a datagram is truncated, a datagram which the socket can't take
+ * without blocking is dropped (see {@link #getDroppedDatagrams()}).
+ *
+ * <p>
+ * <b>Framing</b> is one of
+ * <ul>
+ * <li><code>raw</code> - records as they are formatted by the layout</li>
+ * <li><code>syslog</code> - RFC 5424 messages with <b>Facility</b> and <b>AppName</b>,
+ * a message per datagram as RFC 5426 requires</li>
+ * <li><code>syslog-octet-counting</code> - RFC 5424 messages prefixed by their length
+ * (RFC 6587 octet counting), so that several of them share a datagram</li>
+ * </ul>
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class DatagramAppender extends AbstractAsyncAppender {
+
+	public enum Framing {
+		RAW,
+		SYSLOG,
+		SYSLOG_OCTET_COUNTING;
+
+		public static Framing forName(final String name) {
+			return name == null || name.isEmpty()
+				? RAW : valueOf(name.replace('-', '_').toUpperCase(Locale.ENGLISH));
+		}
+	}
+
+	public static final int DEFAULT_PACKET_SIZE = 1472;
+
+	private static final int DAY = 24 * 60 * 60 * 1000;
+
+	// syslog severities of TRACE, DEBUG, INFO, WARN, ERROR, FATAL
+	private static final int[] SEVERITIES = {7, 7, 6, 4, 3, 2};
+
+	protected String host = "localhost";
+	protected int port = 514;
+	protected String codepage = "UTF-8";
+	protected Framing framing = Framing.RAW;
+	// user-level messages
+	protected int facility = 1;
+	protected String appName;
+
+	protected CharsetEncoder encoder;
+
+	private DatagramChannel channel;
+
+	// the record is formatted into before it is framed into the datagram
+	private ByteBuffer record;
+
+	// " HOSTNAME APP-NAME PROCID - - " of syslog messages
+	private byte[] syslogHeader;
+	private final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+	private final byte[] date = new byte[11];
+	private long dayStart = Long.MAX_VALUE;
+
+	private volatile long datagrams;
+	private volatile long droppedDatagrams;
+	private volatile long truncatedRecords;
+
+	public DatagramAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		this(DEFAULT_PACKET_SIZE, multibyte, logLevel, enabled);
+	}
+
+	public DatagramAppender(
+		final int packetSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super("datagram", packetSize, multibyte, logLevel, enabled);
+		// multibyte appender has a twice bigger buffer
+		byteBuffer.limit(packetSize);
+		record = BufferFormatter.allocate(packetSize);
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public void setPort(final int port) {
+		this.port = port;
+	}
+
+	public void setCodepage(final String codepage) {
+		this.codepage = codepage;
+	}
+
+	public void setFraming(final Framing framing) {
+		this.framing = framing;
+	}
+
+	public void setFacility(final int facility) {
+		this.facility = facility;
+	}
+
+	public void setAppName(final String appName) {
+		this.appName = appName;
+	}
+
+	/**
+	 * @return number of sent datagrams
+	 */
+	public long getDatagrams() {
+		return datagrams;
+	}
+
+	/**
+	 * @return number of datagrams the socket has not taken
+	 */
+	public long getDroppedDatagrams() {
+		return droppedDatagrams;
+	}
+
+	public long getTruncatedRecords() {
+		return truncatedRecords;
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
+		super.process(entry);
+		frame(entry);
+	}
+
+	@Override
+	protected ByteBuffer ensureCapacity(final int size) {
+		if (size > record.capacity()) {
+			// a rare long record, the buffer is kept for the next ones
+			BufferFormatter.purge(record);
+			record = BufferFormatter.allocate(size);
+		}
+		record.clear();
+		return record;
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		record.clear();
+		charBuffer.flip();
+		// the record is truncated if it does not fit
+		encoder.encode(charBuffer, record, true);
+		encoder.reset();
+		charBuffer.clear();
+	}
+
+	/**
+	 * copies the formatted record into the datagram with the header of the framing
+	 */
+	private void frame(final LogEntryItemImpl entry) {
+		record.flip();
+		final int packetSize = byteBuffer.limit();
+
+		if (framing == Framing.RAW) {
+			if (record.remaining() > byteBuffer.remaining()) {
+				send();
+			}
+			put(record, packetSize);
+			return;
+		}
+
+		final int pri = (facility << 3) | SEVERITIES[entry.getLogLevel().ordinal()];
+		// <PRI>1 yyyy-MM-ddTHH:mm:ss.SSSZ HOSTNAME APP-NAME PROCID - -
+		final int headerSize = 1 + BufferFormatter.numberOfDigits(pri) + 3 + date.length + 13 + syslogHeader.length;
+		final int messageSize = headerSize + record.remaining();
+		if (framing == Framing.SYSLOG_OCTET_COUNTING) {
+			final int size = Math.min(messageSize, packetSize - BufferFormatter.numberOfDigits(packetSize) - 1);
+			if (BufferFormatter.numberOfDigits(size) + 1 + size > byteBuffer.remaining()) {
+				send();
+			}
+			BufferFormatter.append(byteBuffer, size);
+			byteBuffer.put((byte) ' ');
+			final int end = byteBuffer.position() + size;
+			putSyslogHeader(pri, entry.getTimestamp());
+			put(record, end);
+		} else {
+			send();
+			putSyslogHeader(pri, entry.getTimestamp());
+			put(record, packetSize);
+			send();
+		}
+	}
+
+	private void put(final ByteBuffer source, final int end) {
+		final int room = end - byteBuffer.position();
+		if (source.remaining() > room) {
+			source.limit(source.position() + room);
+			truncatedRecords++;
+		}
+		byteBuffer.put(source);
+	}
+
+	/**
+	 * &lt;PRI&gt;1 TIMESTAMP HOSTNAME APP-NAME PROCID - -
+	 */
+	private void putSyslogHeader(final int pri, final long timestamp) {
+		byteBuffer.put((byte) '<');
+		BufferFormatter.append(byteBuffer, pri);
+		byteBuffer.put((byte) '>').put((byte) '1').put((byte) ' ');
+		putTimestamp(timestamp);
+		byteBuffer.put(syslogHeader);
+	}
+
+	/**
+	 * yyyy-MM-ddTHH:mm:ss.SSSZ
+	 */
+	private void putTimestamp(final long millis) {
+		if (millis < dayStart || millis >= dayStart + DAY) {
+			calendar.setTimeInMillis(millis);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			dayStart = calendar.getTimeInMillis();
+			final String day = String.format("%04d-%02d-%02dT", calendar.get(Calendar.YEAR),
+				calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+			for (int i = 0; i < date.length; i++) {
+				date[i] = (byte) day.charAt(i);
+			}
+		}
+		byteBuffer.put(date);
+		final int time = (int) (millis - dayStart);
+		putDigits(time / 3600000, 2);
+		byteBuffer.put((byte) ':');
+		putDigits(time / 60000 % 60, 2);
+		byteBuffer.put((byte) ':');
+		putDigits(time / 1000 % 60, 2);
+		byteBuffer.put((byte) '.');
+		putDigits(time % 1000, 3);
+		byteBuffer.put((byte) 'Z');
+	}
+
+	private void putDigits(final int value, final int digits) {
+		for (int d = digits - 1, divider = digits == 3 ? 100 : 10; d >= 0; d--, divider /= 10) {
+			byteBuffer.put((byte) ('0' + value / divider % 10));
+		}
+	}
+
+	@Override
+	public void flush(boolean force) {
+		if (!(force || immediateFlush)) return;
+		send();
+	}
+
+	private void send() {
+		if (byteBuffer.position() == 0) return;
+		final int limit = byteBuffer.limit();
+		byteBuffer.flip();
+		try {
+			if (channel != null && channel.write(byteBuffer) > 0) {
+				datagrams++;
+			} else {
+				droppedDatagrams++;
+			}
+		} catch (final IOException e) {
+			// e.g. nobody listens to the port
+			if (droppedDatagrams++ == 0) {
+				LogLog.warn(getName() + " can't send a datagram - " + e.getMessage());
+			}
+		} finally {
+			byteBuffer.clear();
+			byteBuffer.limit(limit);
+		}
+	}
+
+	@Override
+	public void start() {
+		encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
+
+		if (framing != Framing.RAW) {
+			syslogHeader = (" " + hostName() + " " + nilValue(appName, 48) + " "
+				+ nilValue(processId(), 128) + " - - ").getBytes(Charset.forName("US-ASCII"));
+		}
+
+		try {
+			channel = DatagramChannel.open();
+			channel.configureBlocking(false);
+			channel.connect(new InetSocketAddress(host, port));
+		} catch (final IOException e) {
+			LogLog.error("Can't open " + getName(), e);
+			channel = null;
+		}
+
+		super.start();
+	}
+
+	private static String hostName() {
+		try {
+			return nilValue(InetAddress.getLocalHost().getHostName(), 255);
+		} catch (final IOException e) {
+			return "-";
+		}
+	}
+
+	private static String processId() {
+		final String name = ManagementFactory.getRuntimeMXBean().getName();
+		final int idx = name.indexOf('@');
+		return idx > 0 ? name.substring(0, idx) : null;
+	}
+
+	/**
+	 * @return the value with no spaces or a nil value
+	 */
+	private static String nilValue(final String value, final int maxLength) {
+		if (value == null || value.isEmpty()) return "-";
+		final StringBuilder builder = new StringBuilder(Math.min(value.length(), maxLength));
+		for (int i = 0; i < value.length() && builder.length() < maxLength; i++) {
+			final char c = value.charAt(i);
+			builder.append(c > 32 && c < 127 ? c : '_');
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		super.stop();
+		BufferFormatter.purge(record);
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+			channel = null;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "datagram:" + host + ":" + port;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+/**
+ * DatagramAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class DatagramAppenderFactory extends AbstractAppenderFactory<DatagramAppender> {
+
+	protected String host = getStringProperty("gflogger.datagram.host", "localhost");
+	protected int port = getIntProperty("gflogger.datagram.port", 514);
+	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
+	protected int packetSize = getIntProperty("gflogger.datagram.packetSize", DatagramAppender.DEFAULT_PACKET_SIZE);
+	protected String framing = getStringProperty("gflogger.datagram.framing", "raw");
+	protected int facility = getIntProperty("gflogger.datagram.facility", 1);
+	protected String appName = getStringProperty("gflogger.datagram.appName", null);
+
+	@Override
+	public DatagramAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final DatagramAppender appender = new DatagramAppender(packetSize, multibyte, logLevel, enabled);
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
+
+		appender.setHost(host);
+		appender.setPort(port);
+		appender.setCodepage(codepage);
+		appender.setFraming(DatagramAppender.Framing.forName(framing));
+		appender.setFacility(facility);
+		appender.setAppName(appName);
+
+		return appender;
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getHost() {
+		return this.host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public String getCodepage() {
+		return this.codepage;
+	}
+
+	public void setCodepage(String codepage) {
+		this.codepage = codepage;
+	}
+
+	public int getPacketSize() {
+		return this.packetSize;
+	}
+
+	public void setPacketSize(int packetSize) {
+		this.packetSize = packetSize;
+	}
+
+	public String getFraming() {
+		return this.framing;
+	}
+
+	public void setFraming(String framing) {
+		this.framing = framing;
+	}
+
+	public int getFacility() {
+		return this.facility;
+	}
+
+	public void setFacility(int facility) {
+		this.facility = facility;
+	}
+
+	public String getAppName() {
+		return this.appName;
+	}
+
+	public void setAppName(String appName) {
+		this.appName = appName;
+	}
+
+}
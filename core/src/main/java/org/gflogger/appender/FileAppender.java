@@ -18,21 +18,79 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.gflogger.Layout;
+import org.gflogger.LogEntryItemImpl;
 import org.gflogger.LogLevel;
+import org.gflogger.formatter.BufferFormatter;
 import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NamedThreadFactory;
 
 /**
  * FileAppender
  *
+ * <p>
+ * By default buffer is written to the file on the consumer thread. With
+ * <b>BufferCount</b> greater than 1 the full buffer is handed to a dedicated writer
+ * thread and the consumer continues to format into the next free buffer, so that
+ * formatting overlaps with I/O; the consumer waits for a free buffer only if the
+ * writer falls behind (see {@link #getSwapWaits()}).
+ *
+ * <p>
+ * Durability is controlled by the <b>Sync</b> policy (see {@link Sync}): data is
+ * forced to the disk after a write of the whole buffer, so that all records of
+ * the buffer share a single <code>force</code> call (group commit).
+ *
+ * <p>
+ * With <b>Preallocate</b> greater than 0 the file is extended by writing zeros ahead
+ * in chunks of that size and data is written at explicit positions, so that regular
+ * writes do not grow the file. The file is trimmed to the real length on close or
+ * rollover; trailing zeros left by a crash are trimmed when the file is opened.
+ *
+ * <p>
+ * A buffer consists of <b>Segments</b> of the buffer size: once a segment has no
+ * enough space for an entry the next one is filled, the filled segments are stored
+ * with a single gathering write when the last one has no space or on flush.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
 public class FileAppender extends AbstractAsyncAppender {
 
+	/**
+	 * When the written data is forced to the disk.
+	 */
+	public enum Sync {
+		/**
+		 * it is up to the OS, the file is forced on close only
+		 */
+		NONE,
+		/**
+		 * at most once per <b>SyncInterval</b> millis
+		 */
+		PERIODIC,
+		/**
+		 * after the write of a buffer with an ERROR or FATAL record
+		 */
+		ON_ERROR,
+		/**
+		 * after every write of a buffer
+		 */
+		EVERY_FLUSH;
+
+		public static Sync forName(final String name) {
+			return name == null || name.isEmpty() ? NONE : valueOf(name.toUpperCase(Locale.ENGLISH));
+		}
+	}
+
 	private static final int DEFAULT_BUFFER_SIZE = 1 << 20/*=1M*/;
 	private static final String DUMMY_NAME = null;
 
@@ -46,6 +104,51 @@ public class FileAppender extends AbstractAsyncAppender {
 
 	protected int maxBytesPerChar;
 
+	protected int bufferCount = 1;
+
+	protected int segments = 1;
+
+	// segments of the current buffer, byteBuffer is the one being filled
+	private ByteBuffer[] segmentBuffers;
+	private int segment;
+
+	// buffers which are handed to the writer thread and back
+	private Chunk current;
+	private Chunk[] chunks;
+	private Chunk[] drained;
+	private BlockingQueue<Chunk> free;
+	private BlockingQueue<Chunk> filled;
+	private Thread writer;
+
+	private volatile long swapWaits;
+	private volatile long swapWaitNanos;
+
+	protected Sync sync = Sync.NONE;
+	protected long syncInterval = 1000L;
+
+	// number of records formatted into the current buffer and whether it has to be synced
+	private int records;
+	private boolean syncRequested;
+
+	// owned by the thread which writes buffers
+	private long unsyncedRecords;
+	private long lastSync;
+	private FileChannel lastChannel;
+
+	// 0 means no preallocation
+	protected long preallocate;
+
+	// owned by the consumer: where the next buffer is written to and the preallocated length
+	protected long filePosition;
+	private long allocated;
+	// owned by the thread which writes buffers
+	private ByteBuffer zeros;
+
+	private volatile long syncs;
+	private volatile long syncNanos;
+	private volatile long maxSyncNanos;
+	private volatile long syncedRecords;
+
 	public FileAppender(
 		final boolean multibyte,
 		final LogLevel logLevel,
@@ -99,14 +202,108 @@ public class FileAppender extends AbstractAsyncAppender {
 		this.append = append;
 	}
 
+	public void setBufferCount(final int bufferCount) {
+		this.bufferCount = bufferCount;
+	}
+
+	public int getBufferCount() {
+		return bufferCount;
+	}
+
+	public void setSync(final Sync sync) {
+		this.sync = sync;
+	}
+
+	public Sync getSync() {
+		return sync;
+	}
+
+	public void setSyncInterval(final long syncInterval) {
+		this.syncInterval = syncInterval;
+	}
+
+	public int getSegments() {
+		return segments;
+	}
+
+	public void setSegments(final int segments) {
+		this.segments = segments;
+	}
+
+	public void setPreallocate(final long preallocate) {
+		this.preallocate = preallocate;
+	}
+
+	public long getPreallocate() {
+		return preallocate;
+	}
+
+	/**
+	 * @return number of <code>force</code> calls
+	 */
+	public long getSyncs() {
+		return syncs;
+	}
+
+	/**
+	 * @return total time in nanos spent in <code>force</code> calls
+	 */
+	public long getSyncNanos() {
+		return syncNanos;
+	}
+
+	public long getMaxSyncNanos() {
+		return maxSyncNanos;
+	}
+
+	/**
+	 * @return number of records made durable, divided by {@link #getSyncs()} it gives
+	 * the average number of records per commit
+	 */
+	public long getSyncedRecords() {
+		return syncedRecords;
+	}
+
+	/**
+	 * @return number of times the consumer had to wait for a free buffer
+	 */
+	public long getSwapWaits() {
+		return swapWaits;
+	}
+
+	/**
+	 * @return total time in nanos the consumer waited for a free buffer
+	 */
+	public long getSwapWaitNanos() {
+		return swapWaitNanos;
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
+		super.process(entry);
+		records++;
+		if (sync == Sync.ON_ERROR && entry.getLogLevel().greaterThan(LogLevel.WARN)) {
+			syncRequested = true;
+		}
+	}
+
+	@Override
+	protected ByteBuffer ensureCapacity(final int size) {
+		if (byteBuffer.position() + size >= byteBuffer.limit()) {
+			nextSegment("position + size >= limit");
+		}
+		return byteBuffer;
+	}
+
 	@Override
 	protected void processCharBuffer() {
 		final int remaining = byteBuffer.remaining();
 		final int sizeOfBuffer = maxBytesPerChar * charBuffer.position();
 
-		// store buffer if there it could be no enough space for message
+		// switch to the next segment if there it could be no enough space for message
 		if (remaining < sizeOfBuffer) {
-			store("remaining < sizeOfBuffer");
+			nextSegment("remaining < sizeOfBuffer");
 		}
 
 		charBuffer.flip();
@@ -116,16 +313,55 @@ public class FileAppender extends AbstractAsyncAppender {
 		charBuffer.clear();
 	}
 
+	/**
+	 * switches to the next empty segment or stores all segments if there is no one
+	 */
+	private void nextSegment(final String cause) {
+		if (segment + 1 < segmentBuffers.length && byteBuffer.position() > 0) {
+			byteBuffer = segmentBuffers[++segment];
+		} else {
+			store(cause);
+		}
+	}
+
+	/**
+	 * @return number of bytes in the current buffer which are not stored yet
+	 */
+	protected int buffered() {
+		if (segmentBuffers == null) return byteBuffer.position();
+		int size = 0;
+		for (int i = 0; i <= segment; i++) {
+			size += segmentBuffers[i].position();
+		}
+		return size;
+	}
+
+	private ByteBuffer[] allocateSegments(final ByteBuffer first) {
+		final ByteBuffer[] buffers = new ByteBuffer[Math.max(segments, 1)];
+		buffers[0] = first;
+		for (int i = 1; i < buffers.length; i++) {
+			buffers[i] = BufferFormatter.allocate(first.capacity());
+		}
+		return buffers;
+	}
+
 	@Override
 	public void flush(boolean force) {
 		if (!(force || immediateFlush)) return;
-		store("flushCharBuffer");
+		if (!store("flushCharBuffer") && writer == null) {
+			// nothing to write, but periodic sync could be due
+			afterWrite(channel, 0, false);
+		}
 	}
 
 	@Override
 	protected void workerIsAboutToFinish() {
 		store("workerIsAboutFinish");
 		closeFile();
+		stopWriter();
+		for (int i = 1; i < segmentBuffers.length; i++) {
+			BufferFormatter.purge(segmentBuffers[i]);
+		}
 	}
 
 	@Override
@@ -138,10 +374,182 @@ public class FileAppender extends AbstractAsyncAppender {
 			throw new RuntimeException(e.getMessage(), e);
 		}
 
+		segment = 0;
+		segmentBuffers = allocateSegments(byteBuffer);
+		if (bufferCount > 1) {
+			startWriter();
+		}
+
 		super.start();
 	}
 
+	private void startWriter() {
+		chunks = new Chunk[bufferCount];
+		drained = new Chunk[bufferCount - 1];
+		free = new ArrayBlockingQueue<Chunk>(bufferCount);
+		filled = new ArrayBlockingQueue<Chunk>(bufferCount);
+		current = chunks[0] = new Chunk(segmentBuffers);
+		for (int i = 1; i < bufferCount; i++) {
+			chunks[i] = new Chunk(allocateSegments(BufferFormatter.allocate(byteBuffer.capacity())));
+			free.add(chunks[i]);
+		}
+
+		writer = new NamedThreadFactory("gflogger-writer").newThread(new Runnable() {
+			@Override
+			public void run() {
+				final BlockingQueue<Chunk> filled = FileAppender.this.filled;
+				final BlockingQueue<Chunk> free = FileAppender.this.free;
+				while (true) {
+					final Chunk chunk;
+					try {
+						chunk = sync == Sync.PERIODIC
+							? filled.poll(syncInterval, TimeUnit.MILLISECONDS)
+							: filled.take();
+					} catch (final InterruptedException e) {
+						break;
+					}
+					if (chunk == null) {
+						// nothing to write, but periodic sync could be due
+						afterWrite(lastChannel, 0, false);
+						continue;
+					}
+					write(chunk.channel, chunk.segments, chunk.count,
+						chunk.position, chunk.allocateFrom, chunk.allocateTo);
+					afterWrite(chunk.channel, chunk.records, chunk.sync);
+					chunk.channel = null;
+					free.add(chunk);
+				}
+			}
+		});
+		writer.start();
+	}
+
+	private void stopWriter() {
+		if (writer == null) return;
+		writer.interrupt();
+		try {
+			writer.join();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer = null;
+		for (final Chunk chunk : chunks) {
+			if (chunk.segments != segmentBuffers) {
+				for (final ByteBuffer buffer : chunk.segments) {
+					BufferFormatter.purge(buffer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * waits till the writer thread has written all buffers handed to it
+	 */
+	protected void awaitWrites() {
+		if (writer == null) return;
+		// all buffers but the current one are free once everything is written
+		for (int i = 0; i < drained.length; i++) {
+			drained[i] = takeFree();
+		}
+		for (int i = 0; i < drained.length; i++) {
+			free.add(drained[i]);
+			drained[i] = null;
+		}
+	}
+
+	private Chunk takeFree() {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return free.take();
+				} catch (final InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	protected void createFileChannel() throws FileNotFoundException {
+		final File file = createFolder();
+		if (preallocate > 0) {
+			final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			channel = raf.getChannel();
+			try {
+				if (!append) {
+					channel.truncate(0);
+				}
+				// the preallocated tail of a crashed process is filled with zeros
+				channelOpened(trimZeroTail(channel));
+			} catch (final IOException e) {
+				try {
+					raf.close();
+				} catch (final IOException ignored) {
+					// ignore
+				}
+				final FileNotFoundException ex =
+					new FileNotFoundException("Can't open " + file.getAbsolutePath() + ": " + e.getMessage());
+				ex.initCause(e);
+				throw ex;
+			}
+			return;
+		}
+
+		final FileOutputStream fout = new FileOutputStream(file, append);
+		channel = fout.getChannel();
+	}
+
+	/**
+	 * resets position of the next write to the new channel
+	 */
+	protected void channelOpened(final long length) {
+		filePosition = length;
+		allocated = length;
+	}
+
+	/**
+	 * truncates trailing zero bytes left by preallocation or memory mapping
+	 * of the file which has not been closed properly
+	 *
+	 * @return length of the file
+	 */
+	protected static long trimZeroTail(final FileChannel channel) throws IOException {
+		final long size = channel.size();
+		final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		long length = size;
+		while (length > 0) {
+			final int blockSize = (int) Math.min(buffer.capacity(), length);
+			final long from = length - blockSize;
+			buffer.clear();
+			buffer.limit(blockSize);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, from + buffer.position()) < 0) break;
+			}
+			int i = buffer.position() - 1;
+			while (i >= 0 && buffer.get(i) == 0) {
+				i--;
+			}
+			if (i >= 0) {
+				length = from + i + 1;
+				break;
+			}
+			length = from;
+		}
+		if (length < size) {
+			channel.truncate(length);
+			LogLog.debug("Trimmed " + (size - length) + " trailing zero bytes");
+		}
+		return length;
+	}
+
+	/**
+	 * creates a folder of the file if it does not exist yet
+	 */
+	protected File createFolder() throws FileNotFoundException {
 		final File file = new File(fileName);
 		final File folder = file.getParentFile();
 		if (!folder.exists()) {
@@ -149,11 +557,30 @@ public class FileAppender extends AbstractAsyncAppender {
 				throw new FileNotFoundException("Can't create folder " + folder.getAbsolutePath());
 			}
 		}
-		final FileOutputStream fout = new FileOutputStream(file, append);
-		channel = fout.getChannel();
+		return file;
 	}
 
 	protected void closeFile() {
+		awaitWrites();
+		closeChannel(channel, filePosition);
+	}
+
+	/**
+	 * truncates preallocated channel to the given length and closes it
+	 */
+	protected void closeChannel(final FileChannel channel, final long length) {
+		if (preallocate > 0) {
+			try {
+				channel.truncate(length);
+			} catch (IOException e) {
+				LogLog.error("[" + Thread.currentThread().getName()
+					+ "] exception at " + getName() + " - " + e.getMessage(), e);
+			}
+		}
+		closeChannel(channel);
+	}
+
+	protected void closeChannel(final FileChannel channel) {
 		try {
 			channel.force(true);
 			channel.close();
@@ -164,29 +591,170 @@ public class FileAppender extends AbstractAsyncAppender {
 	}
 
 	protected boolean store(final String cause) {
-		if (byteBuffer.position() == 0) return false;
-		byteBuffer.flip();
+		final int count = byteBuffer.position() > 0 ? segment + 1 : segment;
+		if (count == 0) return false;
+		final int size = buffered();
+		for (int i = 0; i < count; i++) {
+			segmentBuffers[i].flip();
+		}
+		segment = 0;
+		final int records = this.records;
+		final boolean requested = syncRequested || sync == Sync.EVERY_FLUSH;
+		this.records = 0;
+		syncRequested = false;
+
+		long position = -1;
+		long allocateFrom = 0;
+		long allocateTo = 0;
+		if (preallocate > 0) {
+			position = filePosition;
+			filePosition += size;
+			if (filePosition > allocated) {
+				allocateFrom = allocated;
+				allocated = (filePosition + preallocate - 1) / preallocate * preallocate;
+				allocateTo = allocated;
+			}
+		}
+
+		if (writer != null) {
+			handOver(count, records, requested, position, allocateFrom, allocateTo);
+		} else {
+			write(channel, segmentBuffers, count, position, allocateFrom, allocateTo);
+			afterWrite(channel, records, requested);
+			byteBuffer = segmentBuffers[0];
+		}
+		return true;
+	}
+
+	/**
+	 * writes the segments at the given position (or at the current position of
+	 * the channel if it is negative) preallocating the file ahead if it is required
+	 */
+	private void write(final FileChannel channel, final ByteBuffer[] segments, final int count,
+			final long position, final long allocateFrom, final long allocateTo) {
+		if (position >= 0) {
+			try {
+				if (allocateTo > allocateFrom) {
+					preallocate(channel, allocateFrom, allocateTo);
+				}
+				// the only thread which writes into the channel
+				channel.position(position);
+			} catch (final IOException e) {
+				LogLog.error("[" + Thread.currentThread().getName()
+					+ "] exception at " + getName() + " - " + e.getMessage(), e);
+				for (int i = 0; i < count; i++) {
+					segments[i].clear();
+				}
+				return;
+			}
+		}
+		write(channel, segments, count);
+	}
+
+	private void preallocate(final FileChannel channel, final long from, final long to) throws IOException {
+		if (zeros == null) {
+			zeros = BufferFormatter.allocate(1 << 16);
+		}
+		for (long position = from; position < to;) {
+			zeros.clear();
+			zeros.limit((int) Math.min(zeros.capacity(), to - position));
+			position += channel.write(zeros, position);
+		}
+	}
+
+	/**
+	 * forces written data to the disk if it is requested or periodic sync is due,
+	 * it is called by the thread which writes buffers
+	 */
+	private void afterWrite(final FileChannel channel, final int records, final boolean requested) {
+		unsyncedRecords += records;
+		lastChannel = channel;
+		if (sync == Sync.NONE || unsyncedRecords == 0 || channel == null) return;
+
+		final long now = System.currentTimeMillis();
+		if (!requested && !(sync == Sync.PERIODIC && now - lastSync >= syncInterval)) return;
+
+		if (!channel.isOpen()) {
+			// it has been forced on close
+			unsyncedRecords = 0;
+			return;
+		}
+
+		final long start = System.nanoTime();
+		try {
+			channel.force(false);
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
+		final long nanos = System.nanoTime() - start;
+		syncs++;
+		syncNanos += nanos;
+		if (nanos > maxSyncNanos) {
+			maxSyncNanos = nanos;
+		}
+		syncedRecords += unsyncedRecords;
+		unsyncedRecords = 0;
+		lastSync = now;
+	}
+
+	/**
+	 * hands the current buffer to the writer thread and takes the next free one
+	 */
+	private void handOver(final int count, final int records, final boolean sync,
+			final long position, final long allocateFrom, final long allocateTo) {
+		current.count = count;
+		current.channel = channel;
+		current.records = records;
+		current.sync = sync;
+		current.position = position;
+		current.allocateFrom = allocateFrom;
+		current.allocateTo = allocateTo;
+		filled.add(current);
+
+		Chunk next = free.poll();
+		if (next == null) {
+			final long start = System.nanoTime();
+			next = takeFree();
+			swapWaitNanos += System.nanoTime() - start;
+			swapWaits++;
+		}
+		current = next;
+		segmentBuffers = next.segments;
+		byteBuffer = segmentBuffers[0];
+	}
+
+	/**
+	 * writes the first <code>count</code> segments with a gathering write
+	 */
+	protected void write(final FileChannel channel, final ByteBuffer[] segments, final int count) {
+		final ByteBuffer last = segments[count - 1];
 		try {
 			/*/
-			final int limit = buffer.limit();
 			final long start = System.nanoTime();
-			channel.write(buffer);
+			long size = 0;
+			while (last.hasRemaining()) {
+				size += channel.write(segments, 0, count);
+			}
 			final long end = System.nanoTime();
 
 			final String msg = "[" + Thread.currentThread().getName() + "] " + getName() +
-				" " + cause + ":" + limit + " bytes stored in " +
+				" " + count + " segments:" + size + " bytes stored in " +
 				((end - start) / 1000 / 1e3) + " ms";
 			LogLog.debug(msg);
 			/*/
-			channel.write(byteBuffer);
+			while (last.hasRemaining()) {
+				channel.write(segments, 0, count);
+			}
 			//*/
 		} catch (final IOException e) {
 			LogLog.error("[" + Thread.currentThread().getName()
 				+ "] exception at " + getName() + " - " + e.getMessage(), e);
 		} finally {
-			byteBuffer.clear();
+			for (int i = 0; i < count; i++) {
+				segments[i].clear();
+			}
 		}
-		return true;
 	}
 
 
@@ -194,4 +762,21 @@ public class FileAppender extends AbstractAsyncAppender {
 		//forced to overwrite since fileName could be dynamic
 		return "file:" + fileName;
 	}
+
+	private static final class Chunk {
+		final ByteBuffer[] segments;
+		// number of filled segments
+		int count;
+		// channel the buffer has to be written to
+		FileChannel channel;
+		int records;
+		boolean sync;
+		long position;
+		long allocateFrom;
+		long allocateTo;
+
+		Chunk(ByteBuffer[] segments) {
+			this.segments = segments;
+		}
+	}
 }
@@ -17,6 +17,7 @@ package org.gflogger.appender;
 import org.gflogger.LoggerService;
 
 import static org.gflogger.helpers.OptionConverter.getBooleanProperty;
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
 import static org.gflogger.helpers.OptionConverter.getStringProperty;
 
 
@@ -30,6 +31,11 @@ public class FileAppenderFactory<A extends FileAppender> extends AbstractAppende
 	protected String fileName = getStringProperty("gflogger.filename", null);
 	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
 	protected boolean append = getBooleanProperty("gflogger.append", true);
+	protected int bufferCount = getIntProperty("gflogger.file.bufferCount", 1);
+	protected int segments = getIntProperty("gflogger.file.segments", 1);
+	protected String sync = getStringProperty("gflogger.file.sync", "none");
+	protected long syncInterval = getIntProperty("gflogger.file.syncInterval", 1000);
+	protected long preallocate = Long.parseLong(getStringProperty("gflogger.file.preallocate", "0"));
 
 	@Override
 	public A createAppender(Class<? extends LoggerService> loggerServiceClass) {
@@ -40,10 +46,17 @@ public class FileAppenderFactory<A extends FileAppender> extends AbstractAppende
 		appender.setImmediateFlush(immediateFlush);
 		appender.setBufferedIOThreshold(bufferedIOThreshold);
 		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
 
 		appender.setFileName(fileName);
 		appender.setCodepage(codepage);
 		appender.setAppend(append);
+		appender.setBufferCount(bufferCount);
+		appender.setSegments(segments);
+		appender.setSync(FileAppender.Sync.forName(sync));
+		appender.setSyncInterval(syncInterval);
+		appender.setPreallocate(preallocate);
 
 		return appender;
 	}
@@ -79,4 +92,48 @@ public class FileAppenderFactory<A extends FileAppender> extends AbstractAppende
 		this.append = append;
 	}
 
+	public int getBufferCount() {
+		return this.bufferCount;
+	}
+
+	public void setBufferCount(int bufferCount) {
+		this.bufferCount = bufferCount;
+	}
+
+	public String getSync() {
+		return this.sync;
+	}
+
+	/**
+	 * @param sync one of <code>none</code>, <code>periodic</code>, <code>on_error</code>
+	 * or <code>every_flush</code>
+	 */
+	public void setSync(String sync) {
+		this.sync = sync;
+	}
+
+	public long getSyncInterval() {
+		return this.syncInterval;
+	}
+
+	public void setSyncInterval(long syncInterval) {
+		this.syncInterval = syncInterval;
+	}
+
+	public int getSegments() {
+		return this.segments;
+	}
+
+	public void setSegments(int segments) {
+		this.segments = segments;
+	}
+
+	public long getPreallocate() {
+		return this.preallocate;
+	}
+
+	public void setPreallocate(long preallocate) {
+		this.preallocate = preallocate;
+	}
+
 }
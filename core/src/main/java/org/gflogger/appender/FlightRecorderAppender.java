@@ -0,0 +1,248 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatter.BufferFormatter;
+
+/**
+ * FlightRecorderAppender keeps the last <b>RecordingSize</b> bytes of formatted entries
+ * in an off-heap ring and writes nothing until an entry of <b>TriggerLevel</b> (ERROR by
+ * default) or higher comes: the whole history along with that entry is dumped to the
+ * target appender then, so that verbose levels could be enabled at no IO cost and still
+ * be there when something goes wrong.
+ *
+ * <p>
+ * Every entry is kept in the ring as its length and bytes, the oldest entries are
+ * evicted to give a room to a new one, an entry which is longer than the ring is
+ * truncated. A dump could be requested explicitly by {@link #requestDump()} too,
+ * it is served by the consumer thread on the next entry or flush.
+ *
+ * <p>
+ * The target is started and stopped along with the recorder, it has to be an appender
+ * which formats into its own buffer (e.g. a file or a console one).
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class FlightRecorderAppender extends AbstractAsyncAppender {
+
+	// 16M
+	public static final int DEFAULT_RECORDING_SIZE = 1 << 24;
+
+	private static final int HEADER_SIZE = 4;
+
+	protected final AbstractAsyncAppender target;
+	protected final int recordingSize;
+	protected LogLevel triggerLevel = LogLevel.ERROR;
+
+	protected CharsetEncoder encoder;
+
+	private ByteBuffer ring;
+	// the oldest entry
+	private int head;
+	// the next entry is put at
+	private int tail;
+	// the end of the entries before the ring has wrapped around
+	private int wrapEnd;
+	private boolean wrapped;
+	private int entries;
+
+	private volatile boolean dumpRequested;
+
+	private volatile long dumps;
+	private volatile long evictedEntries;
+
+	public FlightRecorderAppender(
+		final int bufferSize,
+		final int recordingSize,
+		final AbstractAsyncAppender target,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super("flightRecorder", bufferSize, multibyte, logLevel, enabled);
+		if (target == null) throw new IllegalArgumentException("target appender is required");
+		if (recordingSize <= HEADER_SIZE) {
+			throw new IllegalArgumentException("recordingSize should be greater than " + HEADER_SIZE);
+		}
+		this.recordingSize = recordingSize;
+		this.target = target;
+	}
+
+	public AbstractAsyncAppender getTarget() {
+		return target;
+	}
+
+	public void setTriggerLevel(final LogLevel triggerLevel) {
+		this.triggerLevel = triggerLevel;
+	}
+
+	/**
+	 * asks the consumer thread to dump the history on the next entry or flush
+	 */
+	public void requestDump() {
+		dumpRequested = true;
+	}
+
+	public long getDumps() {
+		return dumps;
+	}
+
+	/**
+	 * @return number of entries which have been evicted before any dump
+	 */
+	public long getEvictedEntries() {
+		return evictedEntries;
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
+		super.process(entry);
+
+		byteBuffer.flip();
+		record(byteBuffer);
+		byteBuffer.clear();
+
+		if (dumpRequested || !triggerLevel.greaterThan(entry.getLogLevel())) {
+			dump();
+		}
+	}
+
+	@Override
+	protected ByteBuffer ensureCapacity(final int size) {
+		if (size > byteBuffer.capacity()) {
+			// a rare long entry, the buffer is kept for the next ones
+			BufferFormatter.purge(byteBuffer);
+			byteBuffer = BufferFormatter.allocate(size);
+		}
+		byteBuffer.clear();
+		return byteBuffer;
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		byteBuffer.clear();
+		charBuffer.flip();
+		// the entry is truncated if it does not fit
+		encoder.encode(charBuffer, byteBuffer, true);
+		encoder.reset();
+		charBuffer.clear();
+	}
+
+	/**
+	 * puts the formatted entry into the ring evicting the oldest ones
+	 */
+	private void record(final ByteBuffer entry) {
+		final int length = Math.min(entry.remaining(), recordingSize - HEADER_SIZE);
+		final int size = HEADER_SIZE + length;
+		reserve(size);
+		ring.putInt(tail, length);
+		final ByteBuffer slot = ring.duplicate();
+		slot.position(tail + HEADER_SIZE);
+		entry.limit(entry.position() + length);
+		slot.put(entry);
+		tail += size;
+		entries++;
+	}
+
+	/**
+	 * makes [tail, tail + size) free
+	 */
+	private void reserve(final int size) {
+		while (true) {
+			if (entries == 0) {
+				head = tail = 0;
+				wrapped = false;
+				return;
+			}
+			if (!wrapped) {
+				// entries are in [head, tail)
+				if (tail + size <= recordingSize) return;
+				wrapEnd = tail;
+				tail = 0;
+				wrapped = true;
+			}
+			// entries are in [head, wrapEnd) and [0, tail)
+			if (tail + size <= head) return;
+			evict();
+			evictedEntries++;
+		}
+	}
+
+	private void evict() {
+		head += HEADER_SIZE + ring.getInt(head);
+		entries--;
+		if (wrapped && head == wrapEnd) {
+			head = 0;
+			wrapped = false;
+		}
+	}
+
+	/**
+	 * writes the history to the target from the oldest entry and clears the ring
+	 */
+	protected void dump() {
+		dumpRequested = false;
+		if (entries == 0) return;
+		final ByteBuffer entry = ring.duplicate();
+		while (entries > 0) {
+			final int length = ring.getInt(head);
+			entry.limit(head + HEADER_SIZE + length).position(head + HEADER_SIZE);
+			target.append(entry);
+			evict();
+		}
+		head = tail = 0;
+		target.flush();
+		dumps++;
+	}
+
+	@Override
+	public void flush(boolean force) {
+		// nothing is written but dumps
+		if (force && dumpRequested) {
+			dump();
+		}
+	}
+
+	@Override
+	public void start() {
+		encoder = multibyte ? Charset.forName("UTF-8").newEncoder() : null;
+		ring = BufferFormatter.allocate(recordingSize);
+		head = tail = wrapEnd = entries = 0;
+		wrapped = false;
+		target.start();
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		super.stop();
+		BufferFormatter.purge(ring);
+		ring = null;
+		target.stop();
+	}
+
+	@Override
+	public String getName() {
+		return "flightRecorder:" + target.getName();
+	}
+}
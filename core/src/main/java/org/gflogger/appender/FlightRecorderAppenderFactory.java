@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LogLevel;
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+/**
+ * FlightRecorderAppenderFactory dumps the history to a file appender of <b>FileName</b>
+ * unless the target factory is set.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class FlightRecorderAppenderFactory extends AbstractAppenderFactory<FlightRecorderAppender> {
+
+	protected int recordingSize =
+		getIntProperty("gflogger.flightRecorder.recordingSize", FlightRecorderAppender.DEFAULT_RECORDING_SIZE);
+	protected String triggerLevel = getStringProperty("gflogger.flightRecorder.triggerLevel", "ERROR");
+	protected String fileName = getStringProperty("gflogger.flightRecorder.filename", null);
+	protected AppenderFactory<? extends AbstractAsyncAppender> target;
+
+	@Override
+	public FlightRecorderAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final FlightRecorderAppender appender =
+			new FlightRecorderAppender(bufferSize, recordingSize, createTarget(loggerServiceClass),
+				multibyte, logLevel, enabled);
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
+
+		appender.setTriggerLevel(LogLevel.valueOf(triggerLevel));
+
+		return appender;
+	}
+
+	protected AbstractAsyncAppender createTarget(Class<? extends LoggerService> loggerServiceClass) {
+		if (target != null) {
+			return target.createAppender(loggerServiceClass);
+		}
+		if (fileName == null) {
+			throw new IllegalStateException("fileName or target is required for a flight recorder");
+		}
+		// the history is already formatted
+		final FileAppender appender = new FileAppender(bufferSize, multibyte, LogLevel.TRACE, enabled);
+		appender.setLayout(layout);
+		appender.setFileName(fileName);
+		appender.setAppend(true);
+		return appender;
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public int getRecordingSize() {
+		return this.recordingSize;
+	}
+
+	public void setRecordingSize(int recordingSize) {
+		this.recordingSize = recordingSize;
+	}
+
+	public String getTriggerLevel() {
+		return this.triggerLevel;
+	}
+
+	public void setTriggerLevel(String triggerLevel) {
+		this.triggerLevel = triggerLevel;
+	}
+
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public AppenderFactory<? extends AbstractAsyncAppender> getTarget() {
+		return this.target;
+	}
+
+	public void setTarget(AppenderFactory<? extends AbstractAsyncAppender> target) {
+		this.target = target;
+	}
+
+}
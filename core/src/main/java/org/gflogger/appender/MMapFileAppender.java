@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.gflogger.Layout;
+import org.gflogger.LogLevel;
+import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * MMapFileAppender formats entries directly into a memory mapped window of the file,
+ * so that there is neither an extra copy nor a write syscall per flush.
+ *
+ * <p>
+ * The window of {@link #setMapSize(int) mapSize} bytes is mapped ahead of the current
+ * position and is remapped once it has no enough space for the next entry. The file is
+ * truncated to the real length of the written data on close (stop or rollover),
+ * the tail of the last window is filled with zeros till that moment.
+ *
+ * <p>
+ * Data is handed to the OS page cache as soon as it is formatted, a flush does nothing.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class MMapFileAppender extends FileAppender {
+
+	private static final int DEFAULT_MAP_SIZE = 1 << 26/*=64M*/;
+
+	protected int mapSize = DEFAULT_MAP_SIZE;
+
+	// file offset of the mapped window
+	protected long mapPosition;
+	protected MappedByteBuffer mapped;
+
+	// an entry which can't be mapped is formatted into it to be discarded
+	private ByteBuffer discarded;
+
+	public MMapFileAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(multibyte, logLevel, enabled);
+	}
+
+	public MMapFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public MMapFileAppender(
+		final int bufferSize,
+		final Layout layout,
+		final String filename,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, layout, filename, multibyte, logLevel, enabled);
+	}
+
+	public int getMapSize() {
+		return mapSize;
+	}
+
+	public void setMapSize(final int mapSize) {
+		this.mapSize = mapSize;
+	}
+
+	/**
+	 * @return length of the written data
+	 */
+	public long length() {
+		return mapped != null ? mapPosition + mapped.position() : mapPosition;
+	}
+
+	@Override
+	public void start() {
+		// there is nothing to hand over to a writer thread or to sync after a write
+		bufferCount = 1;
+		segments = 1;
+		sync = Sync.NONE;
+		// the window is mapped ahead anyway
+		preallocate = 0;
+		super.start();
+	}
+
+	@Override
+	protected ByteBuffer ensureCapacity(final int size) {
+		if ((mapped == null || mapped.remaining() < size) && !remap(size)) {
+			// the entry is lost, the scratch buffer is grown for a long one
+			if (discarded == null || discarded.capacity() < size) {
+				if (discarded != null) {
+					BufferFormatter.purge(discarded);
+				}
+				discarded = BufferFormatter.allocate(Math.max(BufferFormatter.roundUpNextPower2(size), 1 << 10));
+			}
+			discarded.clear();
+			return discarded;
+		}
+		return mapped;
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		final ByteBuffer target = ensureCapacity(maxBytesPerChar * charBuffer.position());
+
+		charBuffer.flip();
+		encoder.encode(charBuffer, target, true);
+		charBuffer.clear();
+	}
+
+	@Override
+	protected boolean store(final String cause) {
+		// everything is already in the page cache
+		return false;
+	}
+
+	@Override
+	protected void createFileChannel() throws FileNotFoundException {
+		final File file = createFolder();
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		try {
+			if (!append) {
+				channel.truncate(0);
+			}
+			// the tail of the last window of a crashed process is filled with zeros
+			mapPosition = trimZeroTail(channel);
+			map(mapPosition, mapSize);
+		} catch (final IOException e) {
+			try {
+				channel.close();
+			} catch (final IOException ignored) {
+				// ignore
+			}
+			final FileNotFoundException ex =
+				new FileNotFoundException("Can't map " + file.getAbsolutePath() + ": " + e.getMessage());
+			ex.initCause(e);
+			throw ex;
+		}
+	}
+
+	/**
+	 * @return true if the window has been mapped
+	 */
+	protected boolean remap(final int size) {
+		final long position = length();
+		unmap();
+		try {
+			map(position, Math.max(mapSize, size));
+			return true;
+		} catch (final IOException e) {
+			// the next entry makes another attempt to map the window
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+			return false;
+		}
+	}
+
+	private void map(final long position, final int size) throws IOException {
+		mapPosition = position;
+		mapped = channel.map(MapMode.READ_WRITE, position, size);
+	}
+
+	private void unmap() {
+		if (mapped == null) return;
+		mapPosition += mapped.position();
+		BufferFormatter.purge(mapped);
+		mapped = null;
+	}
+
+	@Override
+	protected void closeFile() {
+		final long length = length();
+		unmap();
+		try {
+			channel.truncate(length);
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
+		if (discarded != null) {
+			BufferFormatter.purge(discarded);
+			discarded = null;
+		}
+		super.closeFile();
+	}
+}
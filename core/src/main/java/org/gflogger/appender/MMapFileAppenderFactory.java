@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+
+/**
+ * MMapFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class MMapFileAppenderFactory extends FileAppenderFactory<MMapFileAppender> {
+
+	protected int mapSize = getIntProperty("gflogger.mmap.size", 1 << 26);
+
+	@Override
+	public MMapFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final MMapFileAppender appender = super.createAppender(loggerServiceClass);
+		appender.setMapSize(mapSize);
+		return appender;
+	}
+
+	@Override
+	protected MMapFileAppender createAppender() {
+		return new MMapFileAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public int getMapSize() {
+		return this.mapSize;
+	}
+
+	public void setMapSize(int mapSize) {
+		this.mapSize = mapSize;
+	}
+
+}
@@ -0,0 +1,464 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogFields;
+import org.gflogger.LogLevel;
+import org.gflogger.MDC;
+import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * RoutingFileAppender writes every entry to a file of its own key, e.g. per instrument
+ * or per client logs, the <b>FileName</b> is a pattern where <code>%k</code> is replaced
+ * by the key. <b>RouteBy</b> is one of
+ * <ul>
+ * <li><code>category</code> - category of the entry (by default)</li>
+ * <li><code>mdc:name</code> - MDC value of the thread which has logged the entry</li>
+ * <li><code>kv:name</code> - key/value field of the entry</li>
+ * </ul>
+ * an entry without a value of the key goes to the <b>DefaultRoute</b>. Chars of a key
+ * other than letters, digits, '.', '-' and '_' are replaced by '_'.
+ *
+ * <p>
+ * Up to <b>MaxRoutes</b> files are kept open along with a buffer of <b>RouteBufferSize</b>
+ * bytes each, the least recently used one is closed to open a new one and those which
+ * have not been used for <b>IdleTimeout</b> ms are closed on flush. Routes are looked
+ * up by the bytes of the key in an own hash table, so that there is no allocation on a
+ * hit, and closed routes are reused. Unless <b>Append</b> is on, a file is truncated
+ * when it is opened for the first time since start, a reopened route appends to it.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class RoutingFileAppender extends AbstractAsyncAppender {
+
+	public static final String KEY = "%k";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	protected String fileName;
+	protected String codepage = "UTF-8";
+	protected boolean append = true;
+	protected String routeBy = "category";
+	protected String defaultRoute = "default";
+	protected int maxRoutes = 128;
+	protected long idleTimeout = 60000L;
+
+	protected CharsetEncoder encoder;
+
+	private final int routeBufferSize;
+
+	// the key of the current entry
+	private final byte[] key = new byte[MAX_KEY_LENGTH];
+	private final ByteBuffer keyBuffer = ByteBuffer.wrap(key);
+	private byte[] defaultKey;
+	private int mdcKey = -1;
+	private String fieldKey;
+
+	private Route[] table;
+	// the most and the least recently used routes
+	private Route head;
+	private Route tail;
+	// closed routes to reuse
+	private Route free;
+	private int routes;
+
+	private Route current;
+
+	// names of files which have been truncated in this run, if append is off
+	private Set<String> truncated;
+
+	private volatile long opened;
+	private volatile long evicted;
+
+	public RoutingFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		// entries are formatted into the buffers of routes
+		super("routingFile", bufferSize, multibyte, logLevel, enabled);
+		this.routeBufferSize = multibyte ? bufferSize << 1 : bufferSize;
+	}
+
+	public void setFileName(final String fileName) {
+		this.fileName = fileName;
+	}
+
+	public void setCodepage(final String codepage) {
+		this.codepage = codepage;
+	}
+
+	public void setAppend(final boolean append) {
+		this.append = append;
+	}
+
+	public void setRouteBy(final String routeBy) {
+		this.routeBy = routeBy;
+	}
+
+	public void setDefaultRoute(final String defaultRoute) {
+		this.defaultRoute = defaultRoute;
+	}
+
+	public void setMaxRoutes(final int maxRoutes) {
+		this.maxRoutes = maxRoutes;
+	}
+
+	public void setIdleTimeout(final long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * @return number of open routes
+	 */
+	public int getRoutes() {
+		return routes;
+	}
+
+	/**
+	 * @return number of times a file has been opened
+	 */
+	public long getOpened() {
+		return opened;
+	}
+
+	/**
+	 * @return number of routes closed to open the new ones
+	 */
+	public long getEvicted() {
+		return evicted;
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
+		current = route(entry);
+		if (current == null) return;
+		current.lastUsed = entry.getTimestamp();
+		super.process(entry);
+	}
+
+	@Override
+	protected ByteBuffer ensureCapacity(final int size) {
+		final ByteBuffer buffer = current.buffer;
+		if (buffer.remaining() < size) {
+			write(current);
+			if (buffer.capacity() < size) {
+				// a rare long entry, the buffer is kept for the next ones
+				BufferFormatter.purge(buffer);
+				current.buffer = BufferFormatter.allocate(size);
+			}
+		}
+		return current.buffer;
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		charBuffer.flip();
+		while (true) {
+			final CoderResult result = encoder.encode(charBuffer, current.buffer, true);
+			if (!result.isOverflow()) break;
+			write(current);
+		}
+		encoder.reset();
+		charBuffer.clear();
+	}
+
+	/**
+	 * @return an open route of the entry's key or <code>null</code> if a file can't be opened
+	 */
+	private Route route(final LogEntryItemImpl entry) {
+		final int length = key(entry);
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + key[i];
+		}
+		hash ^= hash >>> 16;
+
+		final int idx = hash & (table.length - 1);
+		for (Route route = table[idx]; route != null; route = route.chain) {
+			if (route.hash == hash && route.matches(key, length)) {
+				touch(route);
+				return route;
+			}
+		}
+		return open(idx, hash, length);
+	}
+
+	/**
+	 * puts the key of the entry into the key buffer
+	 *
+	 * @return length of the key
+	 */
+	private int key(final LogEntryItemImpl entry) {
+		keyBuffer.clear();
+		if (mdcKey >= 0) {
+			if (entry.getContext().isSet(mdcKey) && entry.getContext().size(mdcKey) <= MAX_KEY_LENGTH) {
+				entry.getContext().append(keyBuffer, mdcKey);
+			}
+		} else if (fieldKey != null) {
+			final LogFields fields = entry.getFields();
+			final int idx = fields.indexOf(fieldKey);
+			if (idx >= 0 && fields.size(idx) <= MAX_KEY_LENGTH) {
+				fields.append(keyBuffer, idx);
+			}
+		} else {
+			final String category = entry.getCategoryName();
+			if (category != null) {
+				final int length = Math.min(category.length(), MAX_KEY_LENGTH);
+				for (int i = 0; i < length; i++) {
+					keyBuffer.put((byte) category.charAt(i));
+				}
+			}
+		}
+
+		int length = keyBuffer.position();
+		if (length == 0) {
+			length = defaultKey.length;
+			System.arraycopy(defaultKey, 0, key, 0, length);
+		}
+		for (int i = 0; i < length; i++) {
+			final byte b = key[i];
+			if (!(b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9'
+				|| b == '.' || b == '-' || b == '_')) {
+				key[i] = '_';
+			}
+		}
+		// a key like '..' must not leave the folder
+		if (length <= 2 && key[0] == '.' && key[length - 1] == '.') {
+			key[0] = '_';
+		}
+		return length;
+	}
+
+	private Route open(final int idx, final int hash, final int length) {
+		if (routes == maxRoutes) {
+			close(tail);
+			evicted++;
+		}
+		Route route = free;
+		if (route != null) {
+			free = route.chain;
+		} else {
+			route = new Route(routeBufferSize);
+		}
+
+		route.set(key, length, hash);
+		final String name = fileName.replace(KEY, new String(key, 0, length, ASCII));
+		try {
+			// a route is reopened after an eviction or an idle close,
+			// so a file is truncated on the first open only
+			route.channel = openChannel(name, append || !truncated.add(name));
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] can't open " + name + " at " + getName() + " - " + e.getMessage(), e);
+			route.chain = free;
+			free = route;
+			return null;
+		}
+		opened++;
+
+		route.chain = table[idx];
+		table[idx] = route;
+		route.next = head;
+		if (head != null) head.prev = route;
+		head = route;
+		if (tail == null) tail = route;
+		routes++;
+		return route;
+	}
+
+	protected FileChannel openChannel(final String name, final boolean append) throws IOException {
+		final File file = new File(name);
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (!folder.exists() && !folder.mkdirs()) {
+			throw new FileNotFoundException("Can't create folder " + folder.getAbsolutePath());
+		}
+		return new FileOutputStream(file, append).getChannel();
+	}
+
+	private void touch(final Route route) {
+		if (route == head) return;
+		unlink(route);
+		route.next = head;
+		head.prev = route;
+		head = route;
+	}
+
+	private void unlink(final Route route) {
+		if (route.prev != null) route.prev.next = route.next; else head = route.next;
+		if (route.next != null) route.next.prev = route.prev; else tail = route.prev;
+		route.prev = null;
+		route.next = null;
+	}
+
+	/**
+	 * writes and closes the route and keeps it for reuse
+	 */
+	private void close(final Route route) {
+		write(route);
+		try {
+			route.channel.close();
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
+		route.channel = null;
+
+		final int idx = route.hash & (table.length - 1);
+		if (table[idx] == route) {
+			table[idx] = route.chain;
+		} else {
+			Route prev = table[idx];
+			while (prev.chain != route) prev = prev.chain;
+			prev.chain = route.chain;
+		}
+		unlink(route);
+		routes--;
+		if (route == current) current = null;
+
+		route.chain = free;
+		free = route;
+	}
+
+	private void write(final Route route) {
+		final ByteBuffer buffer = route.buffer;
+		if (buffer.position() == 0) return;
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				route.channel.write(buffer);
+			}
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	@Override
+	public void flush(boolean force) {
+		if (!(force || immediateFlush)) return;
+		for (Route route = head; route != null; route = route.next) {
+			write(route);
+		}
+		if (!force) return;
+
+		final long idleSince = System.currentTimeMillis() - idleTimeout;
+		while (tail != null && tail.lastUsed < idleSince) {
+			close(tail);
+		}
+	}
+
+	@Override
+	public void start() {
+		if (fileName == null || !fileName.contains(KEY)) {
+			throw new IllegalStateException("fileName with " + KEY + " is expected for " + getName());
+		}
+		if (maxRoutes < 1) {
+			throw new IllegalStateException("maxRoutes >= 1 is expected for " + getName() + ", got " + maxRoutes);
+		}
+		encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
+
+		if (routeBy.startsWith("mdc:")) {
+			mdcKey = MDC.key(routeBy.substring(4));
+		} else if (routeBy.startsWith("kv:")) {
+			fieldKey = routeBy.substring(3);
+		} else if (!"category".equals(routeBy)) {
+			throw new IllegalArgumentException("Unknown routeBy '" + routeBy + "' of " + getName());
+		}
+		defaultKey = defaultRoute.getBytes(ASCII);
+
+		int capacity = 1;
+		while (capacity < maxRoutes << 1) capacity <<= 1;
+		table = new Route[capacity];
+		truncated = append ? null : new HashSet<String>();
+
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		while (tail != null) {
+			close(tail);
+		}
+		for (Route route = free; route != null; route = route.chain) {
+			BufferFormatter.purge(route.buffer);
+		}
+		free = null;
+		truncated = null;
+		super.stop();
+	}
+
+	@Override
+	public String getName() {
+		return "routingFile:" + fileName;
+	}
+
+	private static final class Route {
+		private final byte[] key = new byte[MAX_KEY_LENGTH];
+		private int length;
+		private int hash;
+
+		private ByteBuffer buffer;
+		private FileChannel channel;
+		private long lastUsed;
+
+		// the next route of the hash table bucket or of the free list
+		private Route chain;
+		// LRU list
+		private Route prev;
+		private Route next;
+
+		Route(final int bufferSize) {
+			buffer = BufferFormatter.allocate(bufferSize);
+		}
+
+		void set(final byte[] key, final int length, final int hash) {
+			System.arraycopy(key, 0, this.key, 0, length);
+			this.length = length;
+			this.hash = hash;
+			this.buffer.clear();
+			this.chain = null;
+		}
+
+		boolean matches(final byte[] key, final int length) {
+			if (this.length != length) return false;
+			for (int i = 0; i < length; i++) {
+				if (this.key[i] != key[i]) return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getBooleanProperty;
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+/**
+ * RoutingFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class RoutingFileAppenderFactory extends AbstractAppenderFactory<RoutingFileAppender> {
+
+	protected String fileName = getStringProperty("gflogger.filename", null);
+	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
+	protected boolean append = getBooleanProperty("gflogger.append", true);
+	protected String routeBy = getStringProperty("gflogger.routing.routeBy", "category");
+	protected String defaultRoute = getStringProperty("gflogger.routing.defaultRoute", "default");
+	protected int maxRoutes = getIntProperty("gflogger.routing.maxRoutes", 128);
+	protected long idleTimeout = getIntProperty("gflogger.routing.idleTimeout", 60000);
+	// a buffer per route
+	protected int routeBufferSize = getIntProperty("gflogger.routing.bufferSize", 1 << 16);
+
+	@Override
+	public RoutingFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final RoutingFileAppender appender = new RoutingFileAppender(routeBufferSize, multibyte, logLevel, enabled);
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
+
+		appender.setFileName(fileName);
+		appender.setCodepage(codepage);
+		appender.setAppend(append);
+		appender.setRouteBy(routeBy);
+		appender.setDefaultRoute(defaultRoute);
+		appender.setMaxRoutes(maxRoutes);
+		appender.setIdleTimeout(idleTimeout);
+
+		return appender;
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public String getCodepage() {
+		return this.codepage;
+	}
+
+	public void setCodepage(String codepage) {
+		this.codepage = codepage;
+	}
+
+	public boolean isAppend() {
+		return this.append;
+	}
+
+	public void setAppend(boolean append) {
+		this.append = append;
+	}
+
+	public String getRouteBy() {
+		return this.routeBy;
+	}
+
+	public void setRouteBy(String routeBy) {
+		this.routeBy = routeBy;
+	}
+
+	public String getDefaultRoute() {
+		return this.defaultRoute;
+	}
+
+	public void setDefaultRoute(String defaultRoute) {
+		this.defaultRoute = defaultRoute;
+	}
+
+	public int getMaxRoutes() {
+		return this.maxRoutes;
+	}
+
+	public void setMaxRoutes(int maxRoutes) {
+		this.maxRoutes = maxRoutes;
+	}
+
+	public long getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public int getRouteBufferSize() {
+		return this.routeBufferSize;
+	}
+
+	public void setRouteBufferSize(int routeBufferSize) {
+		this.routeBufferSize = routeBufferSize;
+	}
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.gflogger.Layout;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.PatternLayout;
+import org.gflogger.appender.DailyRollingFileAppender.RollingCalendar;
+import org.gflogger.appender.DailyRollingFileAppender.Troubles;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NamedThreadFactory;
+
+/**
+ * SizeAndTimeRollingFileAppender rolls the file over once it reaches
+ * <b>MaxFileSize</b> bytes and/or at the time boundary defined by the
+ * <b>DatePattern</b> (see {@link DailyRollingFileAppender} for the pattern details).
+ *
+ * <p>
+ * The file <code>/foo/bar.log</code> is renamed to
+ * <code>/foo/bar.log[date].[index]</code>, e.g. <code>/foo/bar.log.2002-03-08.0</code>
+ * for the date pattern <code>'.'yyyy-MM-dd</code> or <code>/foo/bar.log.0</code>
+ * if there is no date pattern; the index starts from zero for every period.
+ *
+ * <p>
+ * The only thing which is done on the consumer thread is a rename of the file and an
+ * open of the new one: the rolled file is compressed (<b>Compression</b> is one of
+ * <code>none</code>, <code>gz</code> or <code>zip</code>) and the retention limits
+ * (<b>TotalSizeCap</b> bytes and <b>MaxAge</b> millis of all rolled files) are enforced
+ * on a separate low priority thread.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SizeAndTimeRollingFileAppender extends FileAppender {
+
+	public enum Compression {
+		NONE(""),
+		GZIP(".gz"),
+		ZIP(".zip");
+
+		private final String extension;
+
+		private Compression(final String extension) {
+			this.extension = extension;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		public static Compression forName(final String name) {
+			if (name == null || name.isEmpty() || "none".equalsIgnoreCase(name)) return NONE;
+			if ("gz".equalsIgnoreCase(name) || "gzip".equalsIgnoreCase(name)) return GZIP;
+			if ("zip".equalsIgnoreCase(name)) return ZIP;
+			throw new IllegalArgumentException("Unknown compression '" + name + "'");
+		}
+	}
+
+	// 0 means no size limit
+	protected long maxFileSize;
+	// null means no time based rolling
+	protected String datePattern;
+	protected Compression compression = Compression.NONE;
+	// 0 means no limit
+	protected long totalSizeCap;
+	// 0 means no limit
+	protected long maxAge;
+
+	// bytes written into the current file
+	private long length;
+	private long nextCheck = Long.MAX_VALUE;
+	private String periodSuffix = "";
+	private int index;
+
+	private final Date now = new Date();
+	private SimpleDateFormat sdf;
+	private RollingCalendar rc;
+
+	private ExecutorService executor;
+
+	public SizeAndTimeRollingFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public SizeAndTimeRollingFileAppender(
+		final int bufferSize,
+		final Layout layout,
+		final String filename,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, layout, filename, multibyte, logLevel, enabled);
+	}
+
+	public void setMaxFileSize(final long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	public void setDatePattern(final String datePattern) {
+		this.datePattern = datePattern;
+	}
+
+	public void setCompression(final Compression compression) {
+		this.compression = compression;
+	}
+
+	public void setTotalSizeCap(final long totalSizeCap) {
+		this.totalSizeCap = totalSizeCap;
+	}
+
+	public void setMaxAge(final long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		final long timestamp = entry.getTimestamp();
+		if (timestamp >= nextCheck) {
+			rollOver(timestamp);
+		}
+		super.process(entry);
+		if (maxFileSize > 0 && length + buffered() >= maxFileSize) {
+			rollOver(-1);
+		}
+	}
+
+	@Override
+	protected boolean store(final String cause) {
+		final int size = buffered();
+		final boolean stored = super.store(cause);
+		length += size;
+		return stored;
+	}
+
+	@Override
+	protected void createFileChannel() throws FileNotFoundException {
+		super.createFileChannel();
+		try {
+			length = channel.size();
+		} catch (final IOException e) {
+			length = 0;
+		}
+	}
+
+	/**
+	 * renames the current file and opens a new one, the rest of the work is
+	 * done in the background
+	 *
+	 * @param timestamp time of the new period or <code>-1</code> if the period is not over
+	 */
+	void rollOver(final long timestamp) {
+		store("rollOver");
+		if (length == 0) {
+			// nothing has been written in the period
+			if (timestamp >= 0) nextPeriod(timestamp);
+			return;
+		}
+		closeFile();
+
+		final File rolled = nextRolledFile();
+		try {
+			Files.move(Paths.get(fileName), rolled.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			LogLog.debug("Renamed [" + fileName + "] to [" + rolled + "]");
+		} catch (final IOException e) {
+			LogLog.error("Failed to rename [" + fileName + "] to [" + rolled + "]: ", e);
+		}
+
+		if (timestamp >= 0) {
+			nextPeriod(timestamp);
+		}
+
+		try {
+			createFileChannel();
+		} catch (final IOException e) {
+			LogLog.error("Failed to open [" + fileName + "]: ", e);
+		}
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				compress(rolled);
+				applyRetention();
+			}
+		});
+	}
+
+	private File nextRolledFile() {
+		final String base = fileName + periodSuffix + ".";
+		for (;; index++) {
+			final File file = new File(base + index);
+			if (!file.exists() && !new File(file.getPath() + compression.getExtension()).exists()) {
+				index++;
+				return file;
+			}
+		}
+	}
+
+	private void nextPeriod(final long time) {
+		index = 0;
+		if (rc == null) return;
+		now.setTime(time);
+		periodSuffix = sdf.format(now);
+		nextCheck = rc.getNextCheckMillis(now);
+	}
+
+	void compress(final File file) {
+		if (compression == Compression.NONE || !file.exists()) return;
+		final File target = new File(file.getPath() + compression.getExtension());
+		final File tmp = new File(target.getPath() + ".tmp");
+		try {
+			try (InputStream in = Files.newInputStream(file.toPath());
+				OutputStream out = compressedStream(file, Files.newOutputStream(tmp.toPath()))) {
+				final byte[] buffer = new byte[1 << 16];
+				for (int read; (read = in.read(buffer)) >= 0;) {
+					out.write(buffer, 0, read);
+				}
+			}
+			Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			target.setLastModified(file.lastModified());
+			Files.delete(file.toPath());
+			LogLog.debug("Compressed [" + file + "] to [" + target + "]");
+		} catch (final IOException e) {
+			LogLog.error("Failed to compress [" + file + "]: ", e);
+			tmp.delete();
+		}
+	}
+
+	private OutputStream compressedStream(final File file, final OutputStream out) throws IOException {
+		switch (compression) {
+		case GZIP:
+			return new GZIPOutputStream(out, 1 << 16);
+		case ZIP:
+			final ZipOutputStream zip = new ZipOutputStream(out);
+			zip.putNextEntry(new ZipEntry(file.getName()));
+			return zip;
+		default:
+			return out;
+		}
+	}
+
+	/**
+	 * deletes the oldest rolled files which are over {@link #maxAge} or {@link #totalSizeCap}
+	 */
+	void applyRetention() {
+		if (totalSizeCap <= 0 && maxAge <= 0) return;
+
+		final File file = new File(fileName).getAbsoluteFile();
+		final String prefix = file.getName() + ".";
+		final File[] rolled = file.getParentFile().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(final File f) {
+				final String name = f.getName();
+				return name.startsWith(prefix) && !name.endsWith(".tmp") && f.isFile();
+			}
+		});
+		if (rolled == null) return;
+
+		// the newest first
+		Arrays.sort(rolled, new Comparator<File>() {
+			@Override
+			public int compare(final File f1, final File f2) {
+				return Long.compare(f2.lastModified(), f1.lastModified());
+			}
+		});
+
+		final long oldest = maxAge > 0 ? System.currentTimeMillis() - maxAge : Long.MIN_VALUE;
+		long total = 0;
+		for (final File f : rolled) {
+			total += f.length();
+			if (f.lastModified() < oldest || (totalSizeCap > 0 && total > totalSizeCap)) {
+				final Path path = f.toPath();
+				try {
+					Files.deleteIfExists(path);
+					LogLog.debug("Deleted [" + f + "] due to retention");
+				} catch (final IOException e) {
+					LogLog.error("Failed to delete [" + f + "]: ", e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void start() {
+		if (datePattern != null) {
+			sdf = new SimpleDateFormat(datePattern);
+			final Troubles type = DailyRollingFileAppender.computeCheckPeriod(datePattern);
+			TimeZone timeZone = null;
+			if (layout instanceof PatternLayout) {
+				timeZone = ((PatternLayout) layout).getTimeZone();
+			}
+			if (timeZone == null) {
+				timeZone = TimeZone.getDefault();
+			}
+			sdf.setTimeZone(timeZone);
+			rc = new RollingCalendar(timeZone);
+			rc.setType(type);
+		}
+		nextPeriod(System.currentTimeMillis());
+
+		final ThreadFactory factory = new NamedThreadFactory("gflogger-rolling");
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread thread = factory.newThread(r);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				applyRetention();
+			}
+		});
+
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		if (executor == null) return;
+		// let the pending compression finish
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "sizeAndTimeRollFile:" + fileName;
+	}
+}
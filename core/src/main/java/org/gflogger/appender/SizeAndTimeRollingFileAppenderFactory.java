@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+import org.gflogger.appender.SizeAndTimeRollingFileAppender.Compression;
+
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+import static org.gflogger.helpers.OptionConverter.toFileSize;
+
+/**
+ * SizeAndTimeRollingFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SizeAndTimeRollingFileAppenderFactory extends FileAppenderFactory<SizeAndTimeRollingFileAppender> {
+
+	protected long maxFileSize = toFileSize(getStringProperty("gflogger.rolling.maxFileSize", null), 0);
+	protected String datePattern = getStringProperty("gflogger.rolling.pattern", null);
+	protected String compression = getStringProperty("gflogger.rolling.compression", "none");
+	protected long totalSizeCap = toFileSize(getStringProperty("gflogger.rolling.totalSizeCap", null), 0);
+	protected long maxAge = Long.parseLong(getStringProperty("gflogger.rolling.maxAge", "0"));
+
+	@Override
+	public SizeAndTimeRollingFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final SizeAndTimeRollingFileAppender appender = super.createAppender(loggerServiceClass);
+
+		appender.setMaxFileSize(maxFileSize);
+		appender.setDatePattern(datePattern);
+		appender.setCompression(Compression.forName(compression));
+		appender.setTotalSizeCap(totalSizeCap);
+		appender.setMaxAge(maxAge);
+
+		return appender;
+	}
+
+	@Override
+	protected SizeAndTimeRollingFileAppender createAppender() {
+		return new SizeAndTimeRollingFileAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public long getMaxFileSize() {
+		return this.maxFileSize;
+	}
+
+	public void setMaxFileSize(long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	public String getDatePattern() {
+		return this.datePattern;
+	}
+
+	public void setDatePattern(String datePattern) {
+		this.datePattern = datePattern;
+	}
+
+	public String getCompression() {
+		return this.compression;
+	}
+
+	public void setCompression(String compression) {
+		this.compression = compression;
+	}
+
+	public long getTotalSizeCap() {
+		return this.totalSizeCap;
+	}
+
+	public void setTotalSizeCap(long totalSizeCap) {
+		this.totalSizeCap = totalSizeCap;
+	}
+
+	public long getMaxAge() {
+		return this.maxAge;
+	}
+
+	public void setMaxAge(long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+}
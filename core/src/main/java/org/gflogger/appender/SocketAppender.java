@@ -0,0 +1,546 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import org.gflogger.LogLevel;
+import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * SocketAppender sends formatted entries to <b>Host</b>:<b>Port</b> (e.g. a local
+ * collector agent) over a non-blocking TCP connection, so that the consumer thread
+ * never waits for the network.
+ *
+ * <p>
+ * Everything which can't be sent at once (the connection is not established yet, it
+ * has been lost or the socket buffer is full) is appended to a bounded memory mapped
+ * <b>SpoolFile</b> of <b>SpoolSize</b> bytes and is replayed in order before new data
+ * once the connection is back. The spool survives a restart, a batch which does not fit
+ * it is dropped as a whole (see {@link #getDroppedBytes()}). The spool keeps batches
+ * as they are, so a batch cut by a lost connection is resent as a whole on the next one.
+ * The spool file is locked, so that processes which log to the same endpoint use spools
+ * of their own.
+ *
+ * <p>
+ * A lost connection is re-established on the next flush after a delay which starts
+ * from <b>ReconnectDelay</b> millis and is doubled up to <b>MaxReconnectDelay</b>
+ * millis on every failed attempt.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SocketAppender extends AbstractAsyncAppender {
+
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16/*=64K*/;
+
+	private static final int MAX_DEFAULT_SPOOLS = 16;
+
+	protected String host = "localhost";
+	protected int port;
+	protected String codepage = "UTF-8";
+
+	protected String spoolFile;
+	// 0 means no spool: data is dropped while there is no connection
+	protected int spoolSize = 1 << 26/*=64M*/;
+
+	protected long reconnectDelay = 100L;
+	protected long maxReconnectDelay = 30000L;
+
+	protected CharsetEncoder encoder;
+	protected int maxBytesPerChar;
+
+	// bytes reserved at the start of the buffer for a header of the batch
+	protected int batchHeaderSize;
+
+	private SocketAddress address;
+	private SocketChannel channel;
+	private Spool spool;
+
+	private long delay;
+	private long nextAttempt;
+
+	private volatile long connects;
+	private volatile long droppedBytes;
+
+	public SocketAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		this(DEFAULT_BUFFER_SIZE, multibyte, logLevel, enabled);
+	}
+
+	public SocketAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super("socket", bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public void setPort(final int port) {
+		this.port = port;
+	}
+
+	public void setCodepage(final String codepage) {
+		this.codepage = codepage;
+	}
+
+	public void setSpoolFile(final String spoolFile) {
+		this.spoolFile = spoolFile;
+	}
+
+	public void setSpoolSize(final int spoolSize) {
+		this.spoolSize = spoolSize;
+	}
+
+	public void setReconnectDelay(final long reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	public void setMaxReconnectDelay(final long maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	/**
+	 * @return number of established connections
+	 */
+	public long getConnects() {
+		return connects;
+	}
+
+	/**
+	 * @return number of bytes which have been neither sent nor spooled
+	 */
+	public long getDroppedBytes() {
+		return droppedBytes;
+	}
+
+	/**
+	 * @return number of bytes which are waiting in the spool
+	 */
+	public int getSpooledBytes() {
+		return spool != null ? spool.size() : 0;
+	}
+
+	public boolean isConnected() {
+		return channel != null && channel.isConnected();
+	}
+
+	@Override
+	protected ByteBuffer ensureCapacity(final int size) {
+		if (byteBuffer.position() + size >= byteBuffer.limit()) {
+			send();
+		}
+		return byteBuffer;
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		final int remaining = byteBuffer.remaining();
+		final int sizeOfBuffer = maxBytesPerChar * charBuffer.position();
+
+		// send buffer if there it could be no enough space for message
+		if (remaining < sizeOfBuffer) {
+			send();
+		}
+
+		charBuffer.flip();
+		encoder.encode(charBuffer, byteBuffer, true);
+		charBuffer.clear();
+	}
+
+	@Override
+	public void flush(boolean force) {
+		if (!(force || immediateFlush)) return;
+		send();
+	}
+
+	/**
+	 * writes as much as possible of the buffer into the socket without blocking,
+	 * the rest is spooled
+	 */
+	private void send() {
+		if (byteBuffer.position() > batchHeaderSize) {
+			if (batchHeaderSize > 0) {
+				putBatchHeader(byteBuffer, byteBuffer.position() - batchHeaderSize);
+			}
+			byteBuffer.flip();
+		} else {
+			// nothing to send, but the spool could be replayed
+			byteBuffer.limit(0);
+		}
+		try {
+			if (connected()) {
+				channel.write(byteBuffer);
+			}
+		} catch (final IOException e) {
+			disconnect(e);
+		}
+		if (byteBuffer.hasRemaining()) {
+			final int sent = byteBuffer.position();
+			final int remaining = byteBuffer.remaining();
+			// the whole batch is spooled, so it is resent if the connection is lost
+			// before the rest of it is written
+			byteBuffer.position(0);
+			if (spool == null || !spool.append(byteBuffer, sent)) {
+				if (droppedBytes == 0) {
+					LogLog.warn(getName() + " has no space in the spool, entries are dropped");
+				}
+				droppedBytes += remaining;
+				// the head of the batch has been sent, the connection is closed to not leave
+				// a broken frame in the middle of the stream
+				if (sent > 0) {
+					closeChannel();
+				}
+			}
+		}
+		byteBuffer.clear();
+		byteBuffer.position(batchHeaderSize);
+	}
+
+	/**
+	 * puts the header of the batch of the given size into the reserved space at the
+	 * start of the buffer
+	 */
+	protected void putBatchHeader(final ByteBuffer buffer, final int size) {
+		// empty
+	}
+
+	protected SocketAddress createAddress() throws IOException {
+		return new InetSocketAddress(host, port);
+	}
+
+	protected SocketChannel openChannel() throws IOException {
+		final SocketChannel channel = SocketChannel.open();
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+		return channel;
+	}
+
+	/**
+	 * @return name of the spool file in the temp folder if there is no <b>SpoolFile</b>
+	 */
+	protected String defaultSpoolName() {
+		return "gflogger-" + host + "-" + port + ".spool";
+	}
+
+	/**
+	 * opens the spool, the default one is looked up among the numbered spools of the
+	 * endpoint for one which is not locked by another process
+	 */
+	private Spool openSpool() {
+		final int attempts = spoolFile != null ? 1 : MAX_DEFAULT_SPOOLS;
+		for (int i = 0; i < attempts; i++) {
+			final File file = new File(spoolFile != null ? spoolFile
+				: System.getProperty("java.io.tmpdir") + File.separator + defaultSpoolName()
+					+ (i > 0 ? "." + i : ""));
+			try {
+				return new Spool(file, spoolSize);
+			} catch (final IOException e) {
+				LogLog.error("Can't open spool " + file.getAbsolutePath() + " of " + getName(), e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * makes the next step of the connection and replays the spool
+	 *
+	 * @return true if data could be written into the socket right after the spooled one
+	 */
+	private boolean connected() throws IOException {
+		if (channel == null) {
+			final long now = System.currentTimeMillis();
+			if (now < nextAttempt) return false;
+			// the next attempt is made with the longer delay unless this one succeeds
+			nextAttempt = now + delay;
+			delay = Math.min(delay << 1, maxReconnectDelay);
+
+			channel = openChannel();
+			channel.configureBlocking(false);
+			if (!channel.connect(address)) return false;
+			onConnect();
+		} else if (channel.isConnectionPending()) {
+			if (!channel.finishConnect()) return false;
+			onConnect();
+		}
+
+		if (spool == null || spool.size() == 0) return true;
+		spool.drainTo(channel);
+		return spool.size() == 0;
+	}
+
+	private void onConnect() {
+		delay = reconnectDelay;
+		connects++;
+		LogLog.info(getName() + " is connected");
+	}
+
+	private void disconnect(final IOException e) {
+		LogLog.warn(getName() + " has lost connection - " + e.getMessage());
+		closeChannel();
+	}
+
+	private void closeChannel() {
+		if (channel == null) return;
+		if (spool != null) {
+			spool.rewind();
+		}
+		try {
+			channel.close();
+		} catch (final IOException e) {
+			// ignore
+		}
+		channel = null;
+	}
+
+	@Override
+	public void start() {
+		encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
+		maxBytesPerChar = multibyte ? (int) Math.floor(encoder.maxBytesPerChar()) : 1;
+
+		try {
+			address = createAddress();
+		} catch (final IOException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+		byteBuffer.position(batchHeaderSize);
+		delay = reconnectDelay;
+		nextAttempt = 0;
+
+		if (spoolSize > 0) {
+			spool = openSpool();
+		}
+
+		try {
+			connected();
+		} catch (final IOException e) {
+			disconnect(e);
+		}
+
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		super.stop();
+		closeChannel();
+		if (spool != null) {
+			spool.close();
+			spool = null;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "socket:" + host + ":" + port;
+	}
+
+	/**
+	 * Bounded FIFO of batches in a memory mapped file, the header keeps the read and
+	 * the write positions, so that the spooled data is replayed after a restart.
+	 * Every batch is prefixed by its length, the read position is moved over a batch
+	 * once it has been written completely. The file is locked while it is open.
+	 */
+	static final class Spool {
+
+		private static final int HEADER = 16;
+		private static final int BATCH_HEADER = 4;
+
+		private final File file;
+		private final FileChannel fileChannel;
+		private final MappedByteBuffer buffer;
+		private int read;
+		private int write;
+		private int batches;
+		// bytes of the first batch which have been written into the current connection
+		private int sent;
+
+		Spool(final File file, final int size) throws IOException {
+			this.file = file;
+			final File folder = file.getAbsoluteFile().getParentFile();
+			if (!folder.exists() && !folder.mkdirs()) {
+				throw new IOException("Can't create folder " + folder.getAbsolutePath());
+			}
+			final boolean existed = file.length() >= HEADER;
+			final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			fileChannel = raf.getChannel();
+			if (!lock(fileChannel)) {
+				raf.close();
+				throw new IOException("Spool " + file.getAbsolutePath() + " is used by another appender");
+			}
+			final int capacity = Math.max(HEADER + 1, existed ? (int) Math.max(size, file.length()) : size);
+			buffer = fileChannel.map(MapMode.READ_WRITE, 0, capacity);
+
+			read = existed ? (int) buffer.getLong(0) : HEADER;
+			write = existed ? (int) buffer.getLong(8) : HEADER;
+			if (read < HEADER || write < read || write > capacity || (batches = countBatches()) < 0) {
+				LogLog.warn("Spool " + file.getAbsolutePath() + " is corrupted and is discarded");
+				read = write = HEADER;
+				batches = 0;
+			} else if (write > read) {
+				LogLog.info("Spool " + file.getAbsolutePath() + " has " + (write - read) + " bytes to replay");
+			}
+			storePositions();
+		}
+
+		private static boolean lock(final FileChannel fileChannel) throws IOException {
+			try {
+				return fileChannel.tryLock() != null;
+			} catch (final OverlappingFileLockException e) {
+				// it is locked by this process
+				return false;
+			}
+		}
+
+		/**
+		 * @return number of batches between the read and the write positions,
+		 * -1 if they are not framed properly
+		 */
+		private int countBatches() {
+			int count = 0;
+			for (int position = read; position < write; count++) {
+				if (write - position < BATCH_HEADER) return -1;
+				final int length = buffer.getInt(position);
+				position += BATCH_HEADER;
+				if (length <= 0 || length > write - position) return -1;
+				position += length;
+			}
+			return count;
+		}
+
+		/**
+		 * @return number of spooled bytes of batches
+		 */
+		int size() {
+			return write - read - batches * BATCH_HEADER;
+		}
+
+		boolean append(final ByteBuffer src) {
+			return append(src, 0);
+		}
+
+		/**
+		 * appends all remaining bytes as a batch or nothing, so that a batch is never split
+		 *
+		 * @param sent number of bytes of the batch which have been written into the current
+		 * connection, it is expected to be 0 unless the spool is empty
+		 * @return true if the batch is appended, false if there is no space
+		 */
+		boolean append(final ByteBuffer src, final int sent) {
+			final int length = src.remaining();
+			final int required = BATCH_HEADER + length;
+			if (buffer.capacity() - write < required && read > HEADER) {
+				compact();
+			}
+			if (buffer.capacity() - write < required) return false;
+
+			if (batches == 0) {
+				this.sent = sent;
+			}
+			buffer.putInt(write, length);
+			final ByteBuffer target = buffer.duplicate();
+			target.position(write + BATCH_HEADER);
+			target.put(src);
+
+			write += required;
+			batches++;
+			storePositions();
+			return true;
+		}
+
+		/**
+		 * writes the spooled batches into the channel without blocking
+		 */
+		void drainTo(final WritableByteChannel channel) throws IOException {
+			final ByteBuffer source = buffer.duplicate();
+			try {
+				while (batches > 0) {
+					final int start = read + BATCH_HEADER;
+					final int end = start + buffer.getInt(read);
+					source.limit(end).position(start + sent);
+					channel.write(source);
+					sent = source.position() - start;
+					if (source.hasRemaining()) break;
+
+					read = end;
+					sent = 0;
+					batches--;
+				}
+			} finally {
+				if (batches == 0) {
+					read = write = HEADER;
+				}
+				storePositions();
+			}
+		}
+
+		/**
+		 * the connection is lost, the first batch is resent as a whole on the next one
+		 */
+		void rewind() {
+			sent = 0;
+		}
+
+		private void compact() {
+			final ByteBuffer source = buffer.duplicate();
+			source.limit(write).position(read);
+			final ByteBuffer target = buffer.duplicate();
+			target.position(HEADER);
+			target.put(source);
+			write = HEADER + write - read;
+			read = HEADER;
+		}
+
+		private void storePositions() {
+			buffer.putLong(0, read);
+			buffer.putLong(8, write);
+		}
+
+		void close() {
+			final boolean empty = size() == 0;
+			BufferFormatter.purge(buffer);
+			try {
+				fileChannel.close();
+			} catch (final IOException e) {
+				LogLog.error("Can't close spool " + file.getAbsolutePath(), e);
+			}
+			if (empty) {
+				file.delete();
+			}
+		}
+	}
+}
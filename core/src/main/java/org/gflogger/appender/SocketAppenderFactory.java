@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+/**
+ * SocketAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SocketAppenderFactory<A extends SocketAppender> extends AbstractAppenderFactory<A> {
+
+	protected String host = getStringProperty("gflogger.socket.host", "localhost");
+	protected int port = getIntProperty("gflogger.socket.port", 0);
+	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
+	protected String spoolFile = getStringProperty("gflogger.socket.spoolFile", null);
+	protected int spoolSize = getIntProperty("gflogger.socket.spoolSize", 1 << 26);
+	protected long reconnectDelay = getIntProperty("gflogger.socket.reconnectDelay", 100);
+	protected long maxReconnectDelay = getIntProperty("gflogger.socket.maxReconnectDelay", 30000);
+
+	@Override
+	public A createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final A appender = createAppender();
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+		appender.setConsumer(AbstractAppender.Consumer.forName(consumer));
+		appender.setFormatWorkers(formatWorkers);
+
+		appender.setHost(host);
+		appender.setPort(port);
+		appender.setCodepage(codepage);
+		appender.setSpoolFile(spoolFile);
+		appender.setSpoolSize(spoolSize);
+		appender.setReconnectDelay(reconnectDelay);
+		appender.setMaxReconnectDelay(maxReconnectDelay);
+
+		return appender;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected A createAppender() {
+		return (A) new SocketAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getHost() {
+		return this.host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public String getCodepage() {
+		return this.codepage;
+	}
+
+	public void setCodepage(String codepage) {
+		this.codepage = codepage;
+	}
+
+	public String getSpoolFile() {
+		return this.spoolFile;
+	}
+
+	public void setSpoolFile(String spoolFile) {
+		this.spoolFile = spoolFile;
+	}
+
+	public int getSpoolSize() {
+		return this.spoolSize;
+	}
+
+	public void setSpoolSize(int spoolSize) {
+		this.spoolSize = spoolSize;
+	}
+
+	public long getReconnectDelay() {
+		return this.reconnectDelay;
+	}
+
+	public void setReconnectDelay(long reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	public long getMaxReconnectDelay() {
+		return this.maxReconnectDelay;
+	}
+
+	public void setMaxReconnectDelay(long maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.gflogger.LogLevel;
+
+/**
+ * UnixSocketAppender streams batches of formatted entries to a Unix domain socket
+ * at <b>Path</b> (e.g. of a host level log agent), every batch is prefixed by its
+ * length as a 4 bytes big-endian int.
+ *
+ * <p>
+ * It behaves as the {@link SocketAppender} does on a lost connection or a full socket
+ * buffer: the rest of a batch is spooled and replayed before new data.
+ *
+ * <p>
+ * Unix domain socket channels are available since JDK 16, they are looked up at runtime,
+ * see {@link #isSupported()}.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class UnixSocketAppender extends SocketAppender {
+
+	private static final int BATCH_HEADER_SIZE = 4;
+
+	// java.net.UnixDomainSocketAddress.of(String) and SocketChannel.open(ProtocolFamily)
+	private static final Method ADDRESS_OF;
+	private static final Method OPEN;
+	private static final ProtocolFamily UNIX;
+
+	static {
+		Method addressOf = null;
+		Method open = null;
+		ProtocolFamily unix = null;
+		try {
+			addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+			open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+			unix = StandardProtocolFamily.valueOf("UNIX");
+		} catch (final Exception e) {
+			// older JDK
+			addressOf = null;
+		}
+		ADDRESS_OF = addressOf;
+		OPEN = open;
+		UNIX = unix;
+	}
+
+	protected String path;
+
+	public UnixSocketAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(multibyte, logLevel, enabled);
+		batchHeaderSize = BATCH_HEADER_SIZE;
+	}
+
+	public UnixSocketAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+		batchHeaderSize = BATCH_HEADER_SIZE;
+	}
+
+	/**
+	 * @return true if the JDK supports Unix domain socket channels
+	 */
+	public static boolean isSupported() {
+		return ADDRESS_OF != null;
+	}
+
+	public void setPath(final String path) {
+		this.path = path;
+	}
+
+	@Override
+	public void start() {
+		if (!isSupported()) {
+			throw new IllegalStateException("Unix domain sockets require JDK 16+, "
+				+ getName() + " can't be started");
+		}
+		super.start();
+	}
+
+	@Override
+	protected void putBatchHeader(final ByteBuffer buffer, final int size) {
+		// regardless of the order of the buffer
+		buffer.put(0, (byte) (size >>> 24));
+		buffer.put(1, (byte) (size >>> 16));
+		buffer.put(2, (byte) (size >>> 8));
+		buffer.put(3, (byte) size);
+	}
+
+	@Override
+	protected SocketAddress createAddress() throws IOException {
+		return (SocketAddress) invoke(ADDRESS_OF, null, path);
+	}
+
+	@Override
+	protected SocketChannel openChannel() throws IOException {
+		return (SocketChannel) invoke(OPEN, null, UNIX);
+	}
+
+	private static Object invoke(final Method method, final Object target, final Object arg) throws IOException {
+		try {
+			return method.invoke(target, arg);
+		} catch (final InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			throw new IOException(cause.getMessage(), cause);
+		} catch (final IllegalAccessException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	protected String defaultSpoolName() {
+		return "gflogger-" + new File(path).getName() + ".spool";
+	}
+
+	@Override
+	public String getName() {
+		return "unix:" + path;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+/**
+ * UnixSocketAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class UnixSocketAppenderFactory extends SocketAppenderFactory<UnixSocketAppender> {
+
+	protected String path = getStringProperty("gflogger.unix.path", null);
+
+	@Override
+	public UnixSocketAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final UnixSocketAppender appender = super.createAppender(loggerServiceClass);
+		appender.setPath(path);
+		return appender;
+	}
+
+	@Override
+	protected UnixSocketAppender createAppender() {
+		return new UnixSocketAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getPath() {
+		return this.path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+}
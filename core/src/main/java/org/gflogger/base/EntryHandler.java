@@ -14,6 +14,7 @@
 
 package org.gflogger.base;
 
+import java.nio.CharBuffer;
 import java.util.concurrent.TimeUnit;
 
 import org.gflogger.AbstractEntryHandler;
@@ -27,9 +28,20 @@ import org.gflogger.ring.EntryProcessor;
 import org.gflogger.ring.PaddedAtomicLong;
 import org.gflogger.ring.RingBuffer;
 import org.gflogger.ring.RingBufferAware;
+import org.gflogger.util.SizeHistogram;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
 
 /**
- * EntryHandler
+ * EntryHandler flushes appenders once <b>FlushSize</b> bytes of messages are pending or
+ * <b>FlushInterval</b> micros have passed since the last flush. Pending entries are flushed
+ * as soon as the ring has been drained unless the last flush happened within the interval,
+ * so a rare entry reaches appenders at once and a burst is written in large chunks.
+ *
+ * <p>
+ * The interval is checked with nanosecond precision after every batch, but an idle consumer
+ * waits for the ring with millisecond granularity, so entries which are left pending once
+ * the ring is drained are flushed within <code>max(FlushInterval, 1 ms)</code>.
  *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
@@ -43,8 +55,12 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 	protected final PaddedAtomicLong cursor = new PaddedAtomicLong(RingBuffer.INITIAL_CURSOR_VALUE);
 
 	protected boolean immediateFlush = false;
-	protected int bufferedIOThreshold = 10000;
 	protected long awaitTimeout = 10L;
+	protected long flushInterval = getIntProperty("gflogger.flush.interval", 1000);
+	protected int flushSize = getIntProperty("gflogger.flush.size", 1 << 16);
+
+	// bytes of messages per flush of all appenders
+	protected final SizeHistogram flushSizes = new SizeHistogram();
 
 	public EntryHandler(LoggerServiceImpl service, Appender[] appenders) {
 		super(service, appenders);
@@ -60,19 +76,41 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 		return cursor.get();
 	}
 
+	public SizeHistogram getFlushSizes() {
+		return flushSizes;
+	}
+
+	/**
+	 * @return size of the message of the entry in bytes
+	 */
+	private static int size(final LogEntryItemImpl entry) {
+		// a multibyte message is kept in the char view of the buffer
+		final CharBuffer charBuffer = entry.getCharBuffer();
+		return charBuffer != null ? charBuffer.position() << 1 : entry.getBuffer().position();
+	}
+
 	@Override
 	public void run() {
 		LogLog.debug(Thread.currentThread().getName() + " is started.");
 
+		final long flushIntervalNanos = TimeUnit.MICROSECONDS.toNanos(flushInterval);
+		final long awaitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(awaitTimeout);
 		long idx = RingBuffer.INITIAL_CURSOR_VALUE;
-		long loopCounter = 0;
+		long lastFlush = System.nanoTime();
+		long pending = 0;
+		boolean dirty = false;
 		while (true) {
 			try {
+				// pending entries wait for the rest of the flush interval at most,
+				// rounded up to a millisecond as the ring is waited for in millis
+				final long timeout = dirty
+					? Math.max(1L, TimeUnit.NANOSECONDS.toMillis(lastFlush + flushIntervalNanos - System.nanoTime()))
+					: awaitTimeout;
 				long maxIndex =
 					/*/
 					ringBuffer.waitfor (idx + 1);
 					/*/
-						ringBuffer.waitFor(idx + 1, awaitTimeout, TimeUnit.MILLISECONDS);
+						ringBuffer.waitFor(idx + 1, timeout, TimeUnit.MILLISECONDS);
 				//*/
 
 				// handle all available changes in a row
@@ -82,6 +120,8 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 					assert entry.isPublished();
 
 					try {
+						pending += size(entry);
+						dirty = true;
 						process(entry);
 					} finally {
 						// release entry anyway
@@ -91,18 +131,34 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 					}
 
 					if (immediateFlush) {
+						// immediate flush appenders only
 						flushBuffer(false);
-						loopCounter = 0;
 					}
 
+					if (pending >= flushSize) {
+						// large writes under load
+						flushBuffer();
+						flushSizes.record(pending);
+						pending = 0;
+						dirty = false;
+						lastFlush = System.nanoTime();
+					}
 				}
 
-				if (loopCounter > bufferedIOThreshold) {
+				final long now = System.nanoTime();
+				if (dirty) {
+					if (now - lastFlush >= flushIntervalNanos) {
+						flushBuffer();
+						flushSizes.record(pending);
+						pending = 0;
+						dirty = false;
+						lastFlush = now;
+					}
+				} else if (now - lastFlush >= awaitTimeoutNanos) {
+					// nothing to write, but appenders could have periodic work (e.g. sync)
 					flushBuffer();
-					loopCounter = 0;
+					lastFlush = now;
 				}
-
-				loopCounter++;
 			} catch (InterruptedException e) {
 				//
 			} catch (AlertException e) {
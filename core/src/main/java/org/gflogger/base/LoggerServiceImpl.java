@@ -18,6 +18,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.gflogger.AbstractLoggerServiceImpl;
 import org.gflogger.Appender;
+import org.gflogger.DroppedEntries;
 import org.gflogger.FormattingStrategy;
 import org.gflogger.GFLogger;
 import org.gflogger.GFLoggerBuilder;
@@ -29,6 +30,7 @@ import org.gflogger.State;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.formatting.StringFormattingStrategy;
 import org.gflogger.ring.RingBuffer;
+import org.gflogger.util.SizeHistogram;
 
 import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
 
@@ -114,33 +116,64 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
 	@Override
 	public void entryFlushed(final LocalLogEntry localEntry) {
-		final String categoryName = localEntry.getCategoryName();
-		final LogLevel logLevel = localEntry.getLogLevel();
-		final String threadName = localEntry.getThreadName();
-		final long appenderMask = localEntry.getAppenderMask();
-
 		final long now = System.currentTimeMillis();
+		if (hold(localEntry, now)) return;
+
+		final DroppedEntries dropped = localEntry.getDroppedEntries();
+		final long next = dropped != null ? ringBuffer.tryNext() : ringBuffer.next();
+		if (next == RingBuffer.INITIAL_CURSOR_VALUE) {
+			drop(dropped);
+			return;
+		}
+		final LogEntryItemImpl entry = ringBuffer.get(next);
+
+		try {
+			populate(entry, localEntry, now);
+		} finally {
+			ringBuffer.publish(next);
+		}
+
+		reportDropped(now);
+	}
+
+	@Override
+	protected boolean hasAvailableCapacity(final LogLevel level) {
+		return ringBuffer.hasAvailableCapacity();
+	}
 
+	@Override
+	protected boolean tryReport(final DroppedEntries dropped, final long drops, final long now) {
+		final long next = ringBuffer.tryNext();
+		if (next == RingBuffer.INITIAL_CURSOR_VALUE) return false;
+		final LogEntryItemImpl entry = ringBuffer.get(next);
+
+		try {
+			populate(entry, dropped, drops, now);
+		} finally {
+			ringBuffer.publish(next);
+		}
+		return true;
+	}
+
+	@Override
+	protected void publish(final LogEntryItemImpl held) {
 		final long next = ringBuffer.next();
 		final LogEntryItemImpl entry = ringBuffer.get(next);
 
 		try {
-			entry.setCategoryName(categoryName);
-			entry.setLogLevel(logLevel);
-			entry.setThreadName(threadName);
-			entry.setTimestamp(now);
-			entry.setAppenderMask(appenderMask);
-
-			if (multibyte) {
-				localEntry.copyTo(entry.getCharBuffer());
-			} else {
-				localEntry.copyTo(entry.getBuffer());
-			}
+			held.copyTo(entry);
 		} finally {
 			ringBuffer.publish(next);
 		}
 	}
 
+	/**
+	 * @return a distribution of bytes of messages per flush
+	 */
+	public SizeHistogram getFlushSizes() {
+		return entryHandler.getFlushSizes();
+	}
+
 	@Override
 	protected String name() {
 		return "gflogger";
@@ -153,6 +186,7 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
 	@Override
 	public void stop() {
+		reportDroppedOnStop();
 		ringBuffer.stop();
 		state = State.STOPPED;
 		executorService.shutdown();
@@ -17,12 +17,17 @@
 
 package org.gflogger.disruptor;
 
+import java.nio.ByteBuffer;
+
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
 
 import org.gflogger.AbstractEntryHandler;
 import org.gflogger.Appender;
 import org.gflogger.LogEntryItemImpl;
+import org.gflogger.appender.AbstractAsyncAppender;
 
 /**
  *
@@ -31,23 +36,119 @@ import org.gflogger.LogEntryItemImpl;
 public final class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl>
 		implements EventHandler<LogEntryItemImpl>, LifecycleAware {
 
+	// the handler of the current consumer thread
+	private static final ThreadLocal<EntryHandler> CURRENT = new ThreadLocal<EntryHandler>();
+
+	// entries formatted ahead by formatting workers
+	private final FormatWorker.Slots[] slots;
+
+	// the priority lane which is drained ahead of the ring
+	private RingBuffer<LogEntryItemImpl> priorityRing;
+	private final Sequence prioritySequence = new Sequence();
+	private boolean priorityFlush;
+
 	public EntryHandler(LoggerServiceImpl service, Appender[] appenders) {
-		super(service, appenders);
+		this(service, appenders, null, null);
+	}
+
+	public EntryHandler(LoggerServiceImpl service, Appender[] appenders, boolean[] handled) {
+		this(service, appenders, handled, null);
+	}
+
+	/**
+	 * @param slots slots of appenders by index which are formatted ahead by formatting workers
+	 */
+	EntryHandler(LoggerServiceImpl service, Appender[] appenders, boolean[] handled,
+			FormatWorker.Slots[] slots) {
+		super(service, appenders, handled);
+		this.slots = slots;
+	}
+
+	/**
+	 * @return the handler of the current thread or <code>null</code> if it is not a consumer
+	 */
+	static EntryHandler current() {
+		return CURRENT.get();
+	}
+
+	void flush() {
+		flushBuffer();
+	}
+
+	/**
+	 * makes the handler drain the priority lane ahead of the ring, it gates the lane
+	 *
+	 * @param flush is it required to flush appenders once priority entries are handled
+	 */
+	void setPriorityLane(RingBuffer<LogEntryItemImpl> ring, boolean flush) {
+		this.priorityRing = ring;
+		this.priorityFlush = flush;
+		ring.addGatingSequences(prioritySequence);
+	}
+
+	boolean hasPriority() {
+		return priorityRing != null && priorityRing.getCursor() > prioritySequence.get();
+	}
+
+	/**
+	 * handles all published entries of the priority lane
+	 */
+	void drainPriority() {
+		if (!hasPriority()) return;
+
+		final long cursor = priorityRing.getCursor();
+		final long first = prioritySequence.get() + 1;
+		long next = first;
+		for (; next <= cursor && priorityRing.isPublished(next); next++) {
+			try {
+				process(priorityRing.get(next));
+			} finally {
+				prioritySequence.set(next);
+			}
+		}
+
+		if (priorityFlush && next > first) {
+			flushBuffer();
+		}
 	}
 
 	@Override
 	public void onStart() {
+		CURRENT.set(this);
 		start();
 	}
 
 	@Override
 	public void onShutdown() {
 		stop();
+		CURRENT.remove();
 	}
 
 	@Override
 	public void onEvent(LogEntryItemImpl event, long sequence, boolean endOfBatch)
 			throws Exception {
-		process(event);
+		drainPriority();
+
+		if (slots == null) {
+			process(event);
+			return;
+		}
+
+		final int[] indices = event.getAppenderIndices();
+		for (int i = 0; i < indices.length; i++) {
+			final int idx = indices[i];
+			if (!handled[idx]) continue;
+			final Appender appender = appenders[idx];
+			try {
+				final ByteBuffer formatted = slots[idx] != null ? slots[idx].get(sequence) : null;
+				if (formatted != null) {
+					((AbstractAsyncAppender) appender).process(event, formatted);
+				} else {
+					appender.process(event);
+				}
+			} catch (Throwable e) {
+				appender.onUncatchException(e);
+			}
+		}
 	}
 }
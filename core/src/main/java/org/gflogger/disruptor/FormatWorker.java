@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.disruptor;
+
+import java.nio.ByteBuffer;
+
+import com.lmax.disruptor.EventHandler;
+
+import org.gflogger.Layout;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.appender.AbstractAsyncAppender;
+
+import static org.gflogger.formatter.BufferFormatter.allocate;
+
+/**
+ * FormatWorker formats a stride of entries (every <code>workers</code>-th sequence) ahead of
+ * the consumers into slots of appenders with formatting workers, the consumers run after
+ * all workers and append formatted slots in the order of the ring.
+ *
+ * <p>
+ * A worker has layouts of its own as layouts are not thread safe, the entry itself is only
+ * read by layouts, so that workers and consumers could format it at the same time.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+final class FormatWorker implements EventHandler<LogEntryItemImpl> {
+
+	private final AbstractAsyncAppender[] appenders;
+	private final Layout[] layouts;
+	private final Slots[] slots;
+	private final int workers;
+	private final int worker;
+
+	/**
+	 * @param appenders appenders by index, <code>null</code> if it is not formatted ahead
+	 * @param layouts own layouts of the worker by index
+	 * @param slots slots of appenders by index
+	 */
+	FormatWorker(
+		final AbstractAsyncAppender[] appenders,
+		final Layout[] layouts,
+		final Slots[] slots,
+		final int workers,
+		final int worker
+	) {
+		this.appenders = appenders;
+		this.layouts = layouts;
+		this.slots = slots;
+		this.workers = workers;
+		this.worker = worker;
+	}
+
+	@Override
+	public void onEvent(LogEntryItemImpl entry, long sequence, boolean endOfBatch)
+			throws Exception {
+		if (sequence % workers != worker) return;
+
+		final int[] indices = entry.getAppenderIndices();
+		for (int i = 0; i < indices.length; i++) {
+			final int idx = indices[i];
+			if (appenders[idx] != null) {
+				slots[idx].format(sequence, appenders[idx], layouts[idx], entry);
+			}
+		}
+	}
+
+	/**
+	 * Slots keep entries of the ring formatted by the layout of an appender.
+	 */
+	static final class Slots {
+
+		private final ByteBuffer[] slots;
+		// a length of the formatted entry or -1 if the consumer has to format it
+		private final int[] lengths;
+		private final int mask;
+
+		/**
+		 * @param count a number of items in the ring (2^k)
+		 * @param slotSize max size of a formatted entry (in bytes)
+		 */
+		Slots(final int count, final int slotSize) {
+			final ByteBuffer buffer = allocate(count * slotSize);
+			this.slots = new ByteBuffer[count];
+			this.lengths = new int[count];
+			this.mask = count - 1;
+			for (int i = 0; i < count; i++) {
+				buffer.limit((i + 1) * slotSize);
+				buffer.position(i * slotSize);
+				slots[i] = buffer.slice();
+			}
+		}
+
+		void format(final long sequence, final AbstractAsyncAppender appender,
+				final Layout layout, final LogEntryItemImpl entry) {
+			final int slot = (int) (sequence & mask);
+			lengths[slot] = -1;
+			if (!appender.isEnabled() || appender.getLogLevel().greaterThan(entry.getLogLevel())) return;
+
+			final ByteBuffer target = slots[slot];
+			// a rare long entry is formatted by the consumer
+			if (layout.size(entry) >= target.capacity()) return;
+
+			target.clear();
+			layout.format(target, entry);
+
+			lengths[slot] = target.position();
+		}
+
+		/**
+		 * @return the formatted entry or <code>null</code> if it has not been formatted
+		 */
+		ByteBuffer get(final long sequence) {
+			final int slot = (int) (sequence & mask);
+			final int length = lengths[slot];
+			if (length < 0) return null;
+			final ByteBuffer target = slots[slot];
+			target.limit(length).position(0);
+			return target;
+		}
+	}
+}
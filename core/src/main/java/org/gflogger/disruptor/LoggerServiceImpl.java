@@ -15,11 +15,16 @@
 package org.gflogger.disruptor;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import com.lmax.disruptor.AlertException;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
@@ -29,20 +34,29 @@ import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.gflogger.AbstractLoggerServiceImpl;
 import org.gflogger.Appender;
+import org.gflogger.DroppedEntries;
 import org.gflogger.FormattingStrategy;
 import org.gflogger.GFLogger;
 import org.gflogger.GFLoggerBuilder;
+import org.gflogger.Layout;
 import org.gflogger.LocalLogEntry;
 import org.gflogger.LogEntryItemImpl;
 import org.gflogger.LogLevel;
 import org.gflogger.ObjectFormatterFactory;
+import org.gflogger.PatternLayout;
 import org.gflogger.State;
+import org.gflogger.appender.AbstractAppender;
+import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.formatting.StringFormattingStrategy;
 import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NamedThreadFactory;
 
 import static org.gflogger.formatter.BufferFormatter.allocate;
 import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
+import static org.gflogger.helpers.OptionConverter.getBooleanProperty;
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
 
 /**
  * garbage-free logger service implementation on the top of LMAX's disruptor.
@@ -51,12 +65,22 @@ import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
  */
 public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
+	// room for the pattern around a message in a formatted slot
+	private static final int FORMAT_OVERHEAD = 256;
+
 	private final Disruptor<LogEntryItemImpl>	disruptor;
 
 	private final RingBuffer<LogEntryItemImpl>	ringBuffer;
 
 	private final WaitStrategyImpl	strategy;
 
+	private final LossyEntryHandler[]	lossyHandlers;
+
+	// records at or above the level go to the priority lane, null if there is no lane
+	private final LogLevel	priorityLevel;
+
+	private final RingBuffer<LogEntryItemImpl>	priorityRing;
+
 	/**
 	 * @param count a number of items in the ring
 	 * @param maxMessageSize max message size in the ring (in chars)
@@ -108,20 +132,22 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
 		strategy = new WaitStrategyImpl();
 
-		final LoggerServiceImpl service = this;
+		// a small ring of important records which consumers drain ahead of the main one,
+		// it shares the wait strategy to wake up idle consumers
+		final String priorityLevel = getStringProperty("gflogger.priority.level", null);
+		this.priorityLevel = priorityLevel != null ? LogLevel.valueOf(priorityLevel) : null;
+		if (this.priorityLevel != null) {
+			final int priorityCount = roundUpNextPower2(getIntProperty("gflogger.priority.size", 64));
+			priorityRing = RingBuffer.createMultiProducer(
+				entryFactory(objectFormatterFactory, allocate(priorityCount * bufferSize), bufferSize),
+				priorityCount, strategy);
+		} else {
+			priorityRing = null;
+		}
+		final boolean priorityFlush = getBooleanProperty("gflogger.priority.immediateFlush", true);
 
-		disruptor = new Disruptor<>(new EventFactory<LogEntryItemImpl>() {
-			int i = 0;
-			@Override
-			public LogEntryItemImpl newInstance() {
-				buffer.limit((i + 1) * bufferSize);
-				buffer.position(i * bufferSize);
-				i++;
-				final ByteBuffer subBuffer = buffer.slice();
-				return new LogEntryItemImpl(objectFormatterFactory, service, subBuffer,
-					multibyte, getFormattingStrategy());
-			}
-		},c,
+		disruptor = new Disruptor<>(entryFactory(objectFormatterFactory, buffer, bufferSize),
+		c,
 		executorService,
 		ProducerType.MULTI,
 		strategy);
@@ -147,44 +173,227 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 			}
 		});
 
-		final EntryHandler entryHandler = new EntryHandler(this, appenders);
-		disruptor.handleEventsWith(entryHandler);
+		// appenders which are formatted ahead by formatting workers,
+		// the workers are shared and there are as many of them as the largest number asked
+		final AbstractAsyncAppender[] formatted = new AbstractAsyncAppender[appenders.length];
+		final FormatWorker.Slots[] slots = new FormatWorker.Slots[appenders.length];
+		int workers = 0;
+		for (int i = 0; i < appenders.length; i++) {
+			formatted[i] = formattedAhead(appenders[i]);
+			if (formatted[i] != null) {
+				slots[i] = new FormatWorker.Slots(c, bufferSize + FORMAT_OVERHEAD);
+				workers = Math.max(workers, formatted[i].getFormatWorkers());
+			}
+		}
+
+		// appenders of the shared consumer, every other one has a consumer of its own
+		final boolean[] shared = new boolean[appenders.length];
+		final List<EntryHandler> handlers = new ArrayList<>();
+		final List<Integer> lossy = new ArrayList<>();
+		for (int i = 0; i < appenders.length; i++) {
+			switch (consumer(appenders[i])) {
+			case DEDICATED:
+				handlers.add(new EntryHandler(this, appenders, only(i), workers > 0 ? slots : null));
+				break;
+			case LOSSY:
+				lossy.add(i);
+				break;
+			default:
+				shared[i] = true;
+			}
+		}
+		handlers.add(0, new EntryHandler(this, appenders, shared, workers > 0 ? slots : null));
+		final EntryHandler[] consumers = handlers.toArray(new EntryHandler[handlers.size()]);
+		if (priorityRing != null) {
+			for (int i = 0; i < consumers.length; i++) {
+				consumers[i].setPriorityLane(priorityRing, priorityFlush);
+			}
+		}
+
+		if (workers > 0) {
+			// consumers write entries in the order of the ring once workers have formatted them
+			final FormatWorker[] formatWorkers = new FormatWorker[workers];
+			for (int i = 0; i < workers; i++) {
+				formatWorkers[i] = new FormatWorker(formatted, copyLayouts(formatted), slots, workers, i);
+			}
+			disruptor.handleEventsWith(formatWorkers).then(consumers);
+		} else {
+			disruptor.handleEventsWith(consumers);
+		}
 
 		ringBuffer = disruptor.start();
+
+		lossyHandlers = new LossyEntryHandler[lossy.size()];
+		for (int i = 0; i < lossyHandlers.length; i++) {
+			final LogEntryItemImpl entry = new LogEntryItemImpl(objectFormatterFactory, this,
+				allocate(bufferSize), multibyte, getFormattingStrategy());
+			lossyHandlers[i] = new LossyEntryHandler(this, appenders, only(lossy.get(i)), ringBuffer, entry);
+			if (priorityRing != null) {
+				lossyHandlers[i].setPriorityLane(priorityRing);
+			}
+			executorService.execute(lossyHandlers[i]);
+		}
+
 		state = State.RUNNING;
 	}
 
+	private EventFactory<LogEntryItemImpl> entryFactory(
+		final ObjectFormatterFactory objectFormatterFactory,
+		final ByteBuffer buffer,
+		final int bufferSize
+	) {
+		final LoggerServiceImpl service = this;
+		return new EventFactory<LogEntryItemImpl>() {
+			int i = 0;
+			@Override
+			public LogEntryItemImpl newInstance() {
+				buffer.limit((i + 1) * bufferSize);
+				buffer.position(i * bufferSize);
+				i++;
+				final ByteBuffer subBuffer = buffer.slice();
+				return new LogEntryItemImpl(objectFormatterFactory, service, subBuffer,
+					multibyte, getFormattingStrategy());
+			}
+		};
+	}
+
+	private static AbstractAppender.Consumer consumer(final Appender appender) {
+		return appender instanceof AbstractAppender
+			? ((AbstractAppender) appender).getConsumer()
+			: AbstractAppender.Consumer.SHARED;
+	}
+
+	private static AbstractAsyncAppender formattedAhead(final Appender appender) {
+		if (!(appender instanceof AbstractAsyncAppender)) return null;
+		final AbstractAsyncAppender asyncAppender = (AbstractAsyncAppender) appender;
+		if (asyncAppender.getFormatWorkers() <= 0) return null;
+		// a lossy consumer copies entries out of the ring
+		if (asyncAppender.getConsumer() == AbstractAppender.Consumer.LOSSY) return null;
+		final Layout layout = asyncAppender.getLayout();
+		if (asyncAppender.isMultibyte() || (layout != null && layout.getClass() != PatternLayout.class)) {
+			LogLog.warn(asyncAppender.getName()
+				+ " is formatted by the consumer: formatting workers support single byte pattern layouts only");
+			return null;
+		}
+		return asyncAppender;
+	}
+
+	private static Layout[] copyLayouts(final AbstractAsyncAppender[] formatted) {
+		final Layout[] layouts = new Layout[formatted.length];
+		for (int i = 0; i < formatted.length; i++) {
+			if (formatted[i] == null) continue;
+			final PatternLayout layout = (PatternLayout) formatted[i].getLayout();
+			// the appender falls back to the default layout on start
+			layouts[i] = layout != null
+				? new PatternLayout(layout.getConversionPattern(), layout.getTimeZone(), layout.getLocale())
+				: new PatternLayout();
+		}
+		return layouts;
+	}
+
+	private boolean[] only(final int idx) {
+		final boolean[] handled = new boolean[appenders.length];
+		handled[idx] = true;
+		return handled;
+	}
+
 	@Override
-	public void entryFlushed(LocalLogEntry localEntry) {
-		final String categoryName = localEntry.getCategoryName();
-		final LogLevel logLevel = localEntry.getLogLevel();
-		final String threadName = localEntry.getThreadName();
-		final long appenderMask = localEntry.getAppenderMask();
+	protected ExecutorService initExecutorService() {
+		// a thread per consumer and per formatting worker
+		int consumers = 1;
+		int workers = 0;
+		for (int i = 0; i < appenders.length; i++) {
+			if (consumer(appenders[i]) != AbstractAppender.Consumer.SHARED) {
+				consumers++;
+			}
+			if (appenders[i] instanceof AbstractAsyncAppender) {
+				workers = Math.max(workers, ((AbstractAsyncAppender) appenders[i]).getFormatWorkers());
+			}
+		}
+		return Executors.newFixedThreadPool(consumers + workers, new NamedThreadFactory(name()));
+	}
+
+	/**
+	 * @return number of entries which lossy consumers have dropped
+	 */
+	public long getDroppedEntries() {
+		long dropped = 0;
+		for (int i = 0; i < lossyHandlers.length; i++) {
+			dropped += lossyHandlers[i].getDroppedEntries();
+		}
+		return dropped;
+	}
 
+	@Override
+	public void entryFlushed(LocalLogEntry localEntry) {
 		final long now = System.currentTimeMillis();
+		if (hold(localEntry, now)) return;
+
+		final RingBuffer<LogEntryItemImpl> ring = ringOf(localEntry.getLogLevel());
+		final DroppedEntries dropped = localEntry.getDroppedEntries();
+		long sequence;
+		if (dropped != null) {
+			try {
+				sequence = ring.tryNext();
+			} catch (InsufficientCapacityException e) {
+				drop(dropped);
+				return;
+			}
+		} else {
+			sequence = ring.next();
+		}
+		final LogEntryItemImpl entry = ring.get(sequence);
+		try {
+			populate(entry, localEntry, now);
+		} finally {
+			ring.publish(sequence);
+		}
+
+		reportDropped(now);
+	}
+
+	@Override
+	protected boolean hasAvailableCapacity(final LogLevel level) {
+		return ringOf(level).hasAvailableCapacity(1);
+	}
 
-		long sequence = ringBuffer.next();
+	@Override
+	protected boolean tryReport(final DroppedEntries dropped, final long drops, final long now) {
+		final long sequence;
+		try {
+			sequence = ringBuffer.tryNext();
+		} catch (InsufficientCapacityException e) {
+			return false;
+		}
 		final LogEntryItemImpl entry = ringBuffer.get(sequence);
 		try {
-			entry.setCategoryName(categoryName);
-			entry.setLogLevel(logLevel);
-			entry.setThreadName(threadName);
-			entry.setTimestamp(now);
-			entry.setAppenderMask(appenderMask);
-
-			if (multibyte) {
-				localEntry.copyTo(entry.getCharBuffer());
-			} else {
-				localEntry.copyTo(entry.getBuffer());
-			}
+			populate(entry, dropped, drops, now);
 		} finally {
 			ringBuffer.publish(sequence);
 		}
+		return true;
+	}
+
+	private RingBuffer<LogEntryItemImpl> ringOf(final LogLevel level) {
+		return priorityLevel != null && !priorityLevel.greaterThan(level) ? priorityRing : ringBuffer;
+	}
+
+	@Override
+	protected void publish(final LogEntryItemImpl held) {
+		final RingBuffer<LogEntryItemImpl> ring = ringOf(held.getLogLevel());
+		long sequence = ring.next();
+		final LogEntryItemImpl entry = ring.get(sequence);
+		try {
+			held.copyTo(entry);
+		} finally {
+			ring.publish(sequence);
+		}
 	}
 
 	@Override
 	public void stop() {
 		if (state == State.STOPPED) return;
+		reportDroppedOnStop();
 		state = State.STOPPED;
 		strategy.signalAllWhenBlocking();
 //		for (int i = 0; i < appenders.length; i++) {
@@ -212,8 +421,10 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 	}
 
 	void flush() {
-		for (int i = 0; i < appenders.length; i++) {
-			appenders[i].flush();
+		// a consumer flushes its own appenders only, formatting workers have nothing to flush
+		final EntryHandler handler = EntryHandler.current();
+		if (handler != null) {
+			handler.flush();
 		}
 	}
 
@@ -232,21 +443,35 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 			long availableSequence;
 			if ((availableSequence = cursor.get()) < sequence) {
 				flush();
-				synchronized (lock) {
-					++numWaiters;
-					while ((availableSequence = cursor.get()) < sequence) {
-						if (state == State.STOPPED) {
-							disruptor.halt();
-							throw AlertException.INSTANCE;
+				final EntryHandler handler = EntryHandler.current();
+				while ((availableSequence = cursor.get()) < sequence) {
+					// the priority lane is drained while the ring is idle
+					if (handler != null) {
+						handler.drainPriority();
+					}
+					synchronized (lock) {
+						++numWaiters;
+						try {
+							if (cursor.get() < sequence && (handler == null || !handler.hasPriority())) {
+								// lagging consumers are let to finish before the ring is halted
+								if (state == State.STOPPED
+									&& ringBuffer.getMinimumGatingSequence() >= cursor.get()
+									&& (priorityRing == null
+										|| priorityRing.getMinimumGatingSequence() >= priorityRing.getCursor())) {
+									disruptor.halt();
+									throw AlertException.INSTANCE;
+								}
+								barrier.checkAlert();
+								//*/
+								lock.wait();
+								/*/
+								Thread.sleep(1);
+								//*/
+							}
+						} finally {
+							--numWaiters;
 						}
-						barrier.checkAlert();
-						//*/
-						lock.wait();
-						/*/
-						Thread.sleep(1);
-						//*/
 					}
-					--numWaiters;
 				}
 			}
 			while ((availableSequence = dependentSequence.get()) < sequence) {
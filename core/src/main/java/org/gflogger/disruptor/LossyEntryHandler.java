@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.disruptor;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.util.Util;
+
+import org.gflogger.AbstractEntryHandler;
+import org.gflogger.Appender;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.State;
+import org.gflogger.formatter.BufferViews;
+
+import sun.misc.Unsafe;
+
+/**
+ * LossyEntryHandler runs appenders on an own thread with a cursor which does not gate
+ * the ring: producers never wait for it, and entries which have been overwritten before
+ * the handler has reached them are dropped (see {@link #getDroppedEntries()}).
+ *
+ * <p>
+ * An entry is copied out of the ring and it is processed only if it has not been
+ * overwritten during the copy (as a seqlock reader does), the copy never writes to the
+ * ring entry as it is owned by the producer. The handler parks for {@link #IDLE_NANOS} once it has
+ * caught up with the ring. Entries of the priority lane (if any) are handled first in the
+ * same way.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+final class LossyEntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implements Runnable {
+
+	static final long IDLE_NANOS = 1000000L;
+
+	private static final Unsafe UNSAFE = Util.getUnsafe();
+
+	private final RingBuffer<LogEntryItemImpl> ringBuffer;
+	private final LogEntryItemImpl entry;
+	// own views of buffers of the ring entries
+	private final BufferViews views = new BufferViews();
+
+	// the next entry to process
+	private long next;
+
+	private RingBuffer<LogEntryItemImpl> priorityRing;
+	private long nextPriority;
+
+	private volatile long droppedEntries;
+
+	LossyEntryHandler(
+		final LoggerServiceImpl service,
+		final Appender[] appenders,
+		final boolean[] handled,
+		final RingBuffer<LogEntryItemImpl> ringBuffer,
+		final LogEntryItemImpl entry
+	) {
+		super(service, appenders, handled);
+		this.ringBuffer = ringBuffer;
+		this.entry = entry;
+		// the handler is created before the first entry is published
+		this.next = ringBuffer.getCursor() + 1;
+	}
+
+	void setPriorityLane(final RingBuffer<LogEntryItemImpl> ring) {
+		this.priorityRing = ring;
+		this.nextPriority = ring.getCursor() + 1;
+	}
+
+	long getDroppedEntries() {
+		return droppedEntries;
+	}
+
+	@Override
+	public void run() {
+		start();
+		try {
+			boolean dirty = false;
+			while (true) {
+				// the priority lane goes first
+				if (priorityRing != null && priorityRing.getCursor() >= nextPriority) {
+					final long n = processNext(priorityRing, nextPriority);
+					if (n != nextPriority) {
+						nextPriority = n;
+						dirty = true;
+						continue;
+					}
+				}
+				if (next > ringBuffer.getCursor()) {
+					if (dirty) {
+						flushBuffer();
+						dirty = false;
+					}
+					if (service.getState() == State.STOPPED) break;
+					LockSupport.parkNanos(IDLE_NANOS);
+					continue;
+				}
+				final long n = processNext(ringBuffer, next);
+				if (n == next) {
+					if (service.getState() == State.STOPPED) break;
+					Thread.yield();
+					continue;
+				}
+				next = n;
+				dirty = true;
+			}
+		} finally {
+			stop();
+		}
+	}
+
+	/**
+	 * processes the next entry of the ring unless it is not published yet
+	 *
+	 * @return the next entry to process
+	 */
+	private long processNext(final RingBuffer<LogEntryItemImpl> ring, long next) {
+		final long size = ring.getBufferSize();
+		final long cursor = ring.getCursor();
+		if (cursor - next >= size) {
+			// the ring has wrapped around
+			droppedEntries += cursor - size + 1 - next;
+			next = cursor - size + 1;
+		}
+		if (!ring.isPublished(next)) {
+			// it is being populated or it has been overwritten
+			return next;
+		}
+		ring.get(next).copyTo(entry, views);
+		// the plain reads of the copy must not move after the check of the cursor
+		UNSAFE.loadFence();
+		if (ring.getCursor() - next >= size) {
+			// it has been overwritten during the copy
+			droppedEntries++;
+		} else {
+			process(entry);
+		}
+		return next + 1;
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.formatter;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.IdentityHashMap;
+
+/**
+ * BufferViews keeps own duplicates of entry buffers for a single reader (e.g. a layout
+ * of a consumer), a view is created once per entry buffer and it is reused. A message is
+ * bulk copied through the view, so that neither position nor limit of the entry buffer
+ * is changed and it could be read by several consumers at once.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class BufferViews {
+
+	private final IdentityHashMap<Buffer, Buffer> views = new IdentityHashMap<>();
+
+	/**
+	 * copies the first <code>length</code> bytes of the source into the buffer
+	 */
+	public ByteBuffer put(final ByteBuffer buffer, final ByteBuffer source, final int length) {
+		ByteBuffer view = (ByteBuffer) views.get(source);
+		if (view == null) {
+			view = source.duplicate();
+			views.put(source, view);
+		}
+		view.clear().limit(length);
+		return buffer.put(view);
+	}
+
+	/**
+	 * copies the first <code>length</code> chars of the source into the buffer
+	 */
+	public CharBuffer put(final CharBuffer buffer, final CharBuffer source, final int length) {
+		CharBuffer view = (CharBuffer) views.get(source);
+		if (view == null) {
+			view = source.duplicate();
+			views.put(source, view);
+		}
+		view.clear().limit(length);
+		return buffer.put(view);
+	}
+}
@@ -57,5 +57,12 @@ public abstract class PatternConverter {
 
 	public abstract int size(LogEntryItem entry);
 
+	/**
+	 * @return <code>true</code> if converter renders location of the logging request
+	 */
+	public boolean isLocationRequired() {
+		return false;
+	}
+
 
 }
@@ -22,9 +22,14 @@ import java.nio.CharBuffer;
 import java.util.Locale;
 import java.util.TimeZone;
 
+import org.gflogger.CallSite;
 import org.gflogger.Layout;
+import org.gflogger.LogContext;
 import org.gflogger.LogEntryItem;
+import org.gflogger.LogFields;
+import org.gflogger.MDC;
 import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.formatter.BufferViews;
 import org.gflogger.formatter.FastDateFormat;
 
 // Contributors:   Nelson Minar <(nelson@monkey.org>
@@ -54,11 +59,11 @@ public class PatternParser {
 	private static final int	MIN_STATE				= 4;
 	private static final int	MAX_STATE				= 5;
 
-//	static final int		  FULL_LOCATION_CONVERTER   = 1000;
-//	static final int		  METHOD_LOCATION_CONVERTER = 1001;
-//	static final int		  CLASS_LOCATION_CONVERTER  = 1002;
-//	static final int		  LINE_LOCATION_CONVERTER   = 1003;
-//	static final int		  FILE_LOCATION_CONVERTER   = 1004;
+	static final int			FULL_LOCATION_CONVERTER		= 1000;
+	static final int			METHOD_LOCATION_CONVERTER	= 1001;
+	static final int			CLASS_LOCATION_CONVERTER	= 1002;
+	static final int			LINE_LOCATION_CONVERTER		= 1003;
+	static final int			FILE_LOCATION_CONVERTER		= 1004;
 
 	static final int			RELATIVE_TIME_CONVERTER	= 2000;
 	static final int			THREAD_CONVERTER		= 2001;
@@ -233,6 +238,13 @@ public class PatternParser {
 			formattingInfo.dump();
 			currentLiteral.setLength(0);
 			break;
+		case 'C':
+			pc = new LocationPatternConverter(formattingInfo, CLASS_LOCATION_CONVERTER,
+				extractPrecisionOption());
+			LogLog.debug("CLASS converter.");
+			formattingInfo.dump();
+			currentLiteral.setLength(0);
+			break;
 		case 'd':
 			String dateFormatStr = "ISO8601";
 			FastDateFormat df = null;
@@ -259,36 +271,42 @@ public class PatternParser {
 			formattingInfo.dump();
 			currentLiteral.setLength(0);
 			break;
-//		case 'F':
-//			pc = new LocationPatternConverter(formattingInfo, FILE_LOCATION_CONVERTER);
-//			LogLog.debug("File name converter.");
-//			formattingInfo.dump();
-//			currentLiteral.setLength(0);
-//			break;
-//		case 'l':
-//			pc = new LocationPatternConverter(formattingInfo, FULL_LOCATION_CONVERTER);
-//			LogLog.debug("Location converter.");
-//			formattingInfo.dump();
-//			currentLiteral.setLength(0);
-//			break;
-//		case 'L':
-//			pc = new LocationPatternConverter(formattingInfo, LINE_LOCATION_CONVERTER);
-//			LogLog.debug("LINE NUMBER converter.");
-//			formattingInfo.dump();
-//			currentLiteral.setLength(0);
-//			break;
+		case 'F':
+			pc = new LocationPatternConverter(formattingInfo, FILE_LOCATION_CONVERTER, 0);
+			LogLog.debug("File name converter.");
+			formattingInfo.dump();
+			currentLiteral.setLength(0);
+			break;
+		case 'K':
+			String kOpt = extractOption();
+			pc = new FieldsPatternConverter(formattingInfo, kOpt);
+			LogLog.debug("FIELDS converter {" + kOpt + "}.");
+			currentLiteral.setLength(0);
+			break;
+		case 'l':
+			pc = new LocationPatternConverter(formattingInfo, FULL_LOCATION_CONVERTER, 0);
+			LogLog.debug("Location converter.");
+			formattingInfo.dump();
+			currentLiteral.setLength(0);
+			break;
+		case 'L':
+			pc = new LocationPatternConverter(formattingInfo, LINE_LOCATION_CONVERTER, 0);
+			LogLog.debug("LINE NUMBER converter.");
+			formattingInfo.dump();
+			currentLiteral.setLength(0);
+			break;
 		case 'm':
 			pc = new BasicPatternConverter(formattingInfo, MESSAGE_CONVERTER);
 			LogLog.debug("MESSAGE converter.");
 			formattingInfo.dump();
 			currentLiteral.setLength(0);
 			break;
-//		case 'M':
-//			pc = new LocationPatternConverter(formattingInfo, METHOD_LOCATION_CONVERTER);
-//			LogLog.debug("METHOD converter.");
-//			formattingInfo.dump();
-//			currentLiteral.setLength(0);
-//			break;
+		case 'M':
+			pc = new LocationPatternConverter(formattingInfo, METHOD_LOCATION_CONVERTER, 0);
+			LogLog.debug("METHOD converter.");
+			formattingInfo.dump();
+			currentLiteral.setLength(0);
+			break;
 		case 'p':
 			pc = new BasicPatternConverter(formattingInfo, LEVEL_CONVERTER);
 			LogLog.debug("LEVEL converter.");
@@ -325,11 +343,12 @@ public class PatternParser {
 //			LogLog.debug("NDC converter.");
 //			currentLiteral.setLength(0);
 //			break;
-//		case 'X':
-//			String xOpt = extractOption();
-//			pc = new MDCPatternConverter(formattingInfo, xOpt);
-//			currentLiteral.setLength(0);
-//			break;
+		case 'X':
+			String xOpt = extractOption();
+			pc = new MDCPatternConverter(formattingInfo, xOpt);
+			LogLog.debug("MDC converter {" + xOpt + "}.");
+			currentLiteral.setLength(0);
+			break;
 		default:
 			LogLog.error("Unexpected char [" + c + "] at position " + i
 					+ " in conversion patterrn.");
@@ -356,10 +375,13 @@ public class PatternParser {
 
 	private static class BasicPatternConverter extends PatternConverter {
 		int type;
+		// own views of entry buffers as a layout is used by a single consumer
+		private final BufferViews views;
 
 		BasicPatternConverter(FormattingInfo formattingInfo, int type) {
 			super(formattingInfo);
 			this.type = type;
+			this.views = type == MESSAGE_CONVERTER ? new BufferViews() : null;
 		}
 
 		@Override
@@ -381,7 +403,9 @@ public class PatternParser {
 //			case NDC_CONVERTER:
 //				return event.getNDC();
 			case MESSAGE_CONVERTER: {
-				buffer.put(item.getBuffer());
+				// the entry is shared by consumers, it is copied without changing its position
+				final ByteBuffer message = item.getBuffer();
+				views.put(buffer, message, message.position());
 				return;
 			}
 			default:
@@ -403,7 +427,8 @@ public class PatternParser {
 //			case NDC_CONVERTER:
 //				return event.getNDC();
 			case MESSAGE_CONVERTER: {
-				buffer.put(item.getCharBuffer());
+				final CharBuffer message = item.getCharBuffer();
+				views.put(buffer, message, message.position());
 				return;
 			}
 			default:
@@ -422,8 +447,8 @@ public class PatternParser {
 //			case NDC_CONVERTER:
 //				return event.getNDC();
 			case MESSAGE_CONVERTER: {
-				final ByteBuffer buffer = item.getBuffer();
-				return buffer.position();
+				final CharBuffer charBuffer = item.getCharBuffer();
+				return charBuffer != null ? charBuffer.position() : item.getBuffer().position();
 			}
 			default:
 			}
@@ -520,33 +545,14 @@ public class PatternParser {
 		}
 	}
 
-//	private class LocationPatternConverter extends PatternConverter {
-//		int type;
-//
-//		LocationPatternConverter(FormattingInfo formattingInfo, int type) {
-//			super(formattingInfo);
-//			this.type = type;
-//		}
-//
-//		public String convert(LoggingEvent event) {
-//			LocationInfo locationInfo = event.getLocationInformation();
-//			switch (type) {
-//			case FULL_LOCATION_CONVERTER:
-//				return locationInfo.fullInfo;
-//			case METHOD_LOCATION_CONVERTER:
-//				return locationInfo.getMethodName();
-//			case LINE_LOCATION_CONVERTER:
-//				return locationInfo.getLineNumber();
-//			case FILE_LOCATION_CONVERTER:
-//				return locationInfo.getFileName();
-//			default:
-//				return null;
-//			}
-//		}
-//	}
-
 	private abstract static class NamedPatternConverter extends PatternConverter {
-		int precision;
+		final int precision;
+
+		/*
+		 * names (categories) are long living strings, therefore abbreviations
+		 * are pre-encoded once per name and looked up by the identity
+		 */
+		private final AbbreviationCache cache = new AbbreviationCache();
 
 		NamedPatternConverter(FormattingInfo formattingInfo, int precision) {
 			super(formattingInfo);
@@ -555,11 +561,15 @@ public class PatternParser {
 
 		abstract String getFullyQualifiedName(LogEntryItem item);
 
-		@Override
-		public int size(LogEntryItem item) {
-			String n = getFullyQualifiedName(item);
+		Abbreviation abbreviation(LogEntryItem item) {
+			final String n = getFullyQualifiedName(item);
+			final Abbreviation abbreviation = cache.get(n);
+			return abbreviation != null ? abbreviation : cache.put(n, new Abbreviation(abbreviate(n)));
+		}
+
+		String abbreviate(String n) {
 			if (precision <= 0) {
-				return n.length();
+				return n;
 			}
 			int len = n.length();
 
@@ -572,53 +582,328 @@ public class PatternParser {
 			for (int i = precision; i > 0 && end > 0; i--) {
 				end = n.lastIndexOf('.', end - 1);
 			}
-			return (len - (end + 1));
+			return n.substring(end + 1, len);
+		}
+
+		@Override
+		public int size(LogEntryItem item) {
+			return abbreviation(item).bytes.length;
 		}
 
 		@Override
 		public void format(ByteBuffer buffer, LogEntryItem item) {
-//			if (!item.isByteBufferBased()) {
-				String n = getFullyQualifiedName(item);
-				if (precision <= 0) {
-					BufferFormatter.append(buffer, n);
-				} else {
-					int len = n.length();
-
-					// We substract 1 from 'len' when assigning to 'end' to avoid
-					// out of
-					// bounds exception in return r.substring(end+1, len). This can
-					// happen if
-					// precision is 1 and the category name ends with a dot.
-					int end = len - 1;
-					for (int i = precision; i > 0 && end > 0; i--) {
-						end = n.lastIndexOf('.', end - 1);
-					}
-					BufferFormatter.append(buffer, n, end + 1, len);
-				}
-//			}
+			buffer.put(abbreviation(item).bytes);
 		}
 
 		@Override
 		public void format(CharBuffer buffer, LogEntryItem item) {
-			String n = getFullyQualifiedName(item);
-			if (precision <= 0) {
-				BufferFormatter.append(buffer, n);
-			} else {
-				int len = n.length();
-
-				// We substract 1 from 'len' when assigning to 'end' to avoid
-				// out of
-				// bounds exception in return r.substring(end+1, len). This can
-				// happen if
-				// precision is 1 and the category name ends with a dot.
-				int end = len - 1;
-				for (int i = precision; i > 0 && end > 0; i--) {
-					end = n.lastIndexOf('.', end - 1);
+			buffer.put(abbreviation(item).value);
+		}
+
+	}
+
+	static final class Abbreviation {
+		final String value;
+		final byte[] bytes;
+
+		Abbreviation(String value) {
+			this.value = value;
+			// the same (single byte) encoding as BufferFormatter.append does
+			this.bytes = new byte[value.length()];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = (byte) value.charAt(i);
+			}
+		}
+	}
+
+	/**
+	 * Open addressing identity map of abbreviations: lookups are lock and
+	 * allocation free, misses happen once per name and are serialized.
+	 */
+	static final class AbbreviationCache {
+
+		private static final Object[] EMPTY = new Object[0];
+
+		// [key0, value0, key1, value1, ...]
+		private volatile Object[] table = EMPTY;
+		private int size;
+
+		Abbreviation get(String name) {
+			final Object[] t = table;
+			final int length = t.length;
+			if (length == 0) return null;
+			for (int i = index(name, length);; i = next(i, length)) {
+				final Object key = t[i];
+				// a racing reader could see a key without a value yet,
+				// it gets null and goes via synchronized put
+				if (key == name) return (Abbreviation) t[i + 1];
+				if (key == null) return null;
+			}
+		}
+
+		synchronized Abbreviation put(String name, Abbreviation abbreviation) {
+			final Abbreviation existing = get(name);
+			if (existing != null) return existing;
+
+			Object[] t = table;
+			if ((size + 1) << 2 > t.length) {
+				t = resize(t);
+			}
+			insert(t, name, abbreviation);
+			size++;
+			// volatile write publishes the new entry
+			table = t;
+			return abbreviation;
+		}
+
+		private static Object[] resize(Object[] t) {
+			final Object[] resized = new Object[Math.max(32, t.length << 1)];
+			for (int i = 0; i < t.length; i += 2) {
+				if (t[i] != null) {
+					insert(resized, t[i], t[i + 1]);
 				}
-				BufferFormatter.append(buffer, n, end + 1, len);
 			}
+			return resized;
 		}
 
+		private static void insert(Object[] t, Object key, Object value) {
+			int i = index(key, t.length);
+			while (t[i] != null) {
+				i = next(i, t.length);
+			}
+			t[i + 1] = value;
+			t[i] = key;
+		}
+
+		private static int index(Object key, int length) {
+			final int h = System.identityHashCode(key);
+			// multiply by -127, and left-shift to use least bit as part of hash
+			return ((h << 1) - (h << 8)) & (length - 1);
+		}
+
+		private static int next(int i, int length) {
+			return (i + 2 < length ? i + 2 : 0);
+		}
+	}
+
+	/**
+	 * renders a value of the given key or all set values as <code>{k1=v1, k2=v2}</code>
+	 * if no key is specified
+	 */
+	private static class MDCPatternConverter extends PatternConverter {
+		// -1 means all keys
+		final int key;
+
+		MDCPatternConverter(FormattingInfo formattingInfo, String key) {
+			super(formattingInfo);
+			this.key = key != null ? MDC.key(key) : -1;
+		}
+
+		@Override
+		public int size(LogEntryItem item) {
+			final LogContext context = item.getContext();
+			if (context == null) return 0;
+			if (key >= 0) return context.size(key);
+			// braces
+			int size = 2;
+			final int count = MDC.MAX_KEYS;
+			for (int i = 0; i < count; i++) {
+				if (context.isSet(i)) {
+					// ", " and "="
+					size += MDC.name(i).length() + context.size(i) + 3;
+				}
+			}
+			return size;
+		}
+
+		@Override
+		public void format(ByteBuffer buffer, LogEntryItem item) {
+			final LogContext context = item.getContext();
+			if (context == null) return;
+			if (key >= 0) {
+				context.append(buffer, key);
+				return;
+			}
+			buffer.put((byte) '{');
+			boolean first = true;
+			final int count = MDC.MAX_KEYS;
+			for (int i = 0; i < count; i++) {
+				if (!context.isSet(i)) continue;
+				if (!first) BufferFormatter.append(buffer, ", ");
+				BufferFormatter.append(buffer, MDC.name(i));
+				buffer.put((byte) '=');
+				context.append(buffer, i);
+				first = false;
+			}
+			buffer.put((byte) '}');
+		}
+
+		@Override
+		public void format(CharBuffer buffer, LogEntryItem item) {
+			final LogContext context = item.getContext();
+			if (context == null) return;
+			if (key >= 0) {
+				context.append(buffer, key);
+				return;
+			}
+			buffer.put('{');
+			boolean first = true;
+			final int count = MDC.MAX_KEYS;
+			for (int i = 0; i < count; i++) {
+				if (!context.isSet(i)) continue;
+				if (!first) buffer.put(", ");
+				buffer.put(MDC.name(i));
+				buffer.put('=');
+				context.append(buffer, i);
+				first = false;
+			}
+			buffer.put('}');
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder().append("%mdc");
+			if (key >= 0) builder.append('{').append(MDC.name(key)).append('}');
+			if (next != null) builder.append(" ").append(next);
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * renders a value of the given field or all fields as <code>k1=v1 k2=v2</code>
+	 * if no key is specified
+	 */
+	private static class FieldsPatternConverter extends PatternConverter {
+		// null means all fields
+		final String key;
+
+		FieldsPatternConverter(FormattingInfo formattingInfo, String key) {
+			super(formattingInfo);
+			this.key = key;
+		}
+
+		@Override
+		public int size(LogEntryItem item) {
+			final LogFields fields = item.getFields();
+			if (fields == null) return 0;
+			if (key != null) {
+				final int idx = fields.indexOf(key);
+				return idx >= 0 ? fields.size(idx) : 0;
+			}
+			int size = 0;
+			final int count = fields.size();
+			for (int i = 0; i < count; i++) {
+				// " " and "="
+				size += fields.getKey(i).length() + fields.size(i) + 2;
+			}
+			return size;
+		}
+
+		@Override
+		public void format(ByteBuffer buffer, LogEntryItem item) {
+			final LogFields fields = item.getFields();
+			if (fields == null) return;
+			if (key != null) {
+				final int idx = fields.indexOf(key);
+				if (idx >= 0) fields.append(buffer, idx);
+				return;
+			}
+			final int count = fields.size();
+			for (int i = 0; i < count; i++) {
+				if (i > 0) buffer.put((byte) ' ');
+				BufferFormatter.append(buffer, fields.getKey(i));
+				buffer.put((byte) '=');
+				fields.append(buffer, i);
+			}
+		}
+
+		@Override
+		public void format(CharBuffer buffer, LogEntryItem item) {
+			final LogFields fields = item.getFields();
+			if (fields == null) return;
+			if (key != null) {
+				final int idx = fields.indexOf(key);
+				if (idx >= 0) fields.append(buffer, idx);
+				return;
+			}
+			final int count = fields.size();
+			for (int i = 0; i < count; i++) {
+				if (i > 0) buffer.put(' ');
+				buffer.put(fields.getKey(i));
+				buffer.put('=');
+				fields.append(buffer, i);
+			}
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder().append("%fields");
+			if (key != null) builder.append('{').append(key).append('}');
+			if (next != null) builder.append(" ").append(next);
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * location is rendered from the {@link CallSite} captured on the producer side:
+	 * call site values are long living strings, so that they are pre-encoded once
+	 * by {@link NamedPatternConverter}.
+	 */
+	private static class LocationPatternConverter extends NamedPatternConverter {
+		final int type;
+
+		LocationPatternConverter(FormattingInfo formattingInfo, int type, int precision) {
+			super(formattingInfo, precision);
+			this.type = type;
+		}
+
+		@Override
+		String getFullyQualifiedName(LogEntryItem item) {
+			final CallSite callSite = item.getCallSite() != null ? item.getCallSite() : CallSite.UNKNOWN;
+			switch (type) {
+			case FULL_LOCATION_CONVERTER:
+				return callSite.getLocation();
+			case METHOD_LOCATION_CONVERTER:
+				return callSite.getMethodName();
+			case CLASS_LOCATION_CONVERTER:
+				return callSite.getClassName();
+			case LINE_LOCATION_CONVERTER:
+				return callSite.getLine();
+			case FILE_LOCATION_CONVERTER:
+				return callSite.getFileName();
+			default:
+				return CallSite.NA;
+			}
+		}
+
+		@Override
+		public boolean isLocationRequired() {
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder();
+			switch (type) {
+			case FULL_LOCATION_CONVERTER:
+				builder.append("%location");
+				break;
+			case METHOD_LOCATION_CONVERTER:
+				builder.append("%method");
+				break;
+			case CLASS_LOCATION_CONVERTER:
+				builder.append("%class");
+				break;
+			case LINE_LOCATION_CONVERTER:
+				builder.append("%line");
+				break;
+			case FILE_LOCATION_CONVERTER:
+				builder.append("%file");
+				break;
+			}
+			if (next != null) builder.append(" ").append(next);
+			return builder.toString();
+		}
 	}
 
 	private class CategoryPatternConverter extends NamedPatternConverter {
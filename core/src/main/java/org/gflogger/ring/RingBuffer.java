@@ -84,6 +84,29 @@ public final class RingBuffer<T extends Publishable> {
 		return nextSeqNum;
 	}
 
+	/**
+	 * claims the next sequence unless the ring is full, it never waits
+	 *
+	 * @return the next sequence or {@link #INITIAL_CURSOR_VALUE} if the ring is full
+	 */
+	public long tryNext() {
+		long current;
+		long next;
+		do {
+			current = sequence.get();
+			next = current + 1;
+			if (next - entries.length > getMinSeqNum()) return INITIAL_CURSOR_VALUE;
+		} while (!sequence.compareAndSet(current, next));
+		return next;
+	}
+
+	/**
+	 * @return true if the next sequence could be claimed without waiting
+	 */
+	public boolean hasAvailableCapacity() {
+		return sequence.get() + 1 - entries.length <= getMinSeqNum();
+	}
+
 	private void claimSequence(final long seqNum) {
 		final long wrapPoint = seqNum - entries.length;
 		final MutableLong minSeq = minSequence.get();
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.util;
+
+/**
+ * SizeHistogram counts sizes in power of 2 buckets: the bucket <code>i</code> keeps sizes
+ * in <code>[2^(i-1), 2^i)</code> and the bucket <code>0</code> keeps zero sizes.
+ *
+ * <p>
+ * It is garbage-free and it is expected to have a single writer, readers see
+ * a slightly stale view.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class SizeHistogram {
+
+	public static final int BUCKETS = 64;
+
+	private final long[] buckets = new long[BUCKETS];
+
+	private volatile long count;
+	private volatile long total;
+	private volatile long max;
+
+	public void record(final long size) {
+		buckets[bucketOf(size)]++;
+		total += size;
+		if (size > max) {
+			max = size;
+		}
+		count++;
+	}
+
+	public static int bucketOf(final long size) {
+		return size <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(size);
+	}
+
+	/**
+	 * @return the exclusive upper bound of sizes in the bucket
+	 */
+	public static long upperBound(final int bucket) {
+		return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+	}
+
+	public long getCount(final int bucket) {
+		return buckets[bucket];
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public long getMean() {
+		final long c = count;
+		return c != 0 ? total / c : 0;
+	}
+
+	/**
+	 * @return the upper bound of the bucket the given percentile (0..100) falls into
+	 */
+	public long getPercentile(final double percentile) {
+		final long c = count;
+		if (c == 0) return 0;
+		final long rank = (long) Math.ceil(c * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("count=").append(count)
+			.append(" mean=").append(getMean())
+			.append(" p50=").append(getPercentile(50))
+			.append(" p99=").append(getPercentile(99))
+			.append(" max=").append(max);
+		return builder.toString();
+	}
+}
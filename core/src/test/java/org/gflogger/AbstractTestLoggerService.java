@@ -99,6 +99,316 @@ public abstract class AbstractTestLoggerService {
 		assertEquals("commited", buffer.toString());
 	}
 
+	@Test
+	public void testManyAppenders() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+		final GFLog otherLog = GFLogFactory.getLog("com.other.Logger");
+
+		final int maxMessageSize = 32;
+		final int count = 70;
+		final ConsoleAppenderFactory[] factories = new ConsoleAppenderFactory[count];
+		final StringBuffer[] buffers = new StringBuffer[count];
+		for (int i = 0; i < count; i++) {
+			factories[i] = new ConsoleAppenderFactory();
+			factories[i].setLayoutPattern("%m");
+			factories[i].setMultibyte(false);
+			factories[i].setBufferSize(1 << 10);
+			buffers[i] = new StringBuffer();
+			factories[i].setOutputStream(buffers[i]);
+			factories[i].setLogLevel(LogLevel.INFO);
+		}
+		final GFLoggerBuilder[] loggers = {
+			new GFLoggerBuilder(LogLevel.INFO, "com.db", Arrays.copyOf(factories, count - 1)),
+			new GFLoggerBuilder(LogLevel.INFO, "com.other", factories[count - 1], factories[count - 2])
+		};
+		final LoggerService loggerService = createLoggerService(maxMessageSize, loggers, factories);
+
+		GFLogFactory.init(loggerService);
+
+		log.info().append("a").commit();
+		otherLog.info().append("b").commit();
+
+		GFLogFactory.stop();
+
+		for (int i = 0; i < count - 2; i++) {
+			assertEquals("appender #" + i, "a", buffers[i].toString());
+		}
+		assertEquals("ab", buffers[count - 2].toString());
+		assertEquals("b", buffers[count - 1].toString());
+	}
+
+	@Test
+	public void testScope() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 32;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m;");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.DEBUG);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder(LogLevel.DEBUG, "com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		// succeeded: debug entries are discarded
+		GFLogFactory.openScope(LogLevel.INFO);
+		log.debug().append("a").commit();
+		log.info().append("b").commit();
+		GFLogFactory.closeScope();
+
+		// failed: debug entries are published ahead of the error
+		GFLogFactory.openScope(LogLevel.INFO);
+		log.debug().append("c").commit();
+		log.debug().append("d").commit();
+		log.error().append("e").commit();
+		log.debug().append("f").commit();
+		GFLogFactory.closeScope();
+
+		log.debug().append("g").commit();
+
+		GFLogFactory.stop();
+
+		assertEquals("b;c;d;e;f;g;", buffer.toString());
+	}
+
+	@Test
+	public void testTryLog() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final StringBuffer buffer = new StringBuffer();
+		// the consumer is blocked on the first entry until it is released
+		final AbstractAppenderFactory<Appender> factory = new AbstractAppenderFactory<Appender>() {
+			@Override
+			public Appender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+				preinit(loggerServiceClass);
+				final AbstractAsyncAppender appender = new AbstractAsyncAppender("blocking", 1024, false, LogLevel.TRACE, true) {
+					@Override
+					public void process(LogEntryItemImpl entry) {
+						if (entered.getCount() > 0) {
+							entered.countDown();
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+						super.process(entry);
+					}
+
+					@Override
+					public void flush(boolean force) {
+						byteBuffer.flip();
+						while (byteBuffer.hasRemaining()) {
+							buffer.append((char) byteBuffer.get());
+						}
+						byteBuffer.clear();
+					}
+				};
+				appender.setLayout(layout);
+				return appender;
+			}
+		};
+		factory.setLayoutPattern("%m;");
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder(LogLevel.INFO, "com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		log.info().append("first").commit();
+		entered.await();
+
+		// the view is shared between services
+		final long dropped0 = ((GFLogView) log).getDroppedEntries();
+
+		// the ring is filled up and the rest is dropped
+		int accepted = 0;
+		for (int i = 0; i < 16; i++) {
+			final GFLogEntry entry = log.tryInfo();
+			if (entry != NullLogEntry.INSTANCE) {
+				entry.append("try").commit();
+				accepted++;
+			}
+		}
+		final long dropped = ((GFLogView) log).getDroppedEntries() - dropped0;
+		assertTrue(dropped > 0);
+		assertEquals(16, accepted + dropped);
+
+		release.countDown();
+		log.info().append("after").commit();
+
+		GFLogFactory.stop();
+
+		final StringBuilder expected = new StringBuilder("first;");
+		for (int i = 0; i < accepted; i++) {
+			expected.append("try;");
+		}
+		expected.append("after;dropped ").append(dropped).append(" entries;");
+		assertEquals(expected.toString(), buffer.toString());
+	}
+
+	@Test
+	public void testLocation() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 64;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%C{1}.%M(%F) %m");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		System.setProperty("gflogger.location.implicit", "true");
+		final LoggerService loggerService;
+		try {
+			loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+		} finally {
+			System.clearProperty("gflogger.location.implicit");
+		}
+
+		GFLogFactory.init(loggerService);
+
+		log.info().append("implicit").commit();
+
+		final CallSite callSite = new CallSite("com.db.Foo", "bar", "Foo.java", 42);
+		log.info(callSite).append(" explicit").commit();
+		log.info(callSite, "%s").with(" formatted");
+
+		GFLogFactory.stop();
+
+		assertEquals("AbstractTestLoggerService.testLocation(AbstractTestLoggerService.java) implicit"
+			+ "Foo.bar(Foo.java)  explicit"
+			+ "Foo.bar(Foo.java)  formatted", buffer.toString());
+	}
+
+	@Test
+	public void testImplicitLocationIsOffByDefault() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 64;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%C.%M(%F:%L) %m");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		log.info().append("implicit").commit();
+
+		GFLogFactory.stop();
+
+		assertEquals("?.?(?:?) implicit", buffer.toString());
+	}
+
+	@Test
+	public void testFullLocation() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 64;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%l:%L %m");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		log.info(new CallSite("com.db.Foo", "bar", "Foo.java", 42)).append("location").commit();
+
+		GFLogFactory.stop();
+
+		assertEquals("com.db.Foo.bar(Foo.java:42):42 location", buffer.toString());
+	}
+
+	@Test
+	public void testMDC() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 64;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("[%X{requestId}] [%X{user}] %X %m\n");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		final StringBuilder user = new StringBuilder("alice");
+		MDC.put("requestId", 42L);
+		MDC.put("user", user);
+		log.info().append("first").commit();
+
+		// value is copied into the context
+		user.setLength(0);
+		user.append("bob");
+		MDC.put("user", user);
+		log.info().append("second").commit();
+
+		MDC.remove("requestId");
+		log.info().append("third").commit();
+
+		MDC.clear();
+		log.info().append("fourth").commit();
+
+		GFLogFactory.stop();
+
+		assertEquals(
+			"[42] [alice] {requestId=42, user=alice} first\n" +
+			"[42] [bob] {requestId=42, user=bob} second\n" +
+			"[] [bob] {user=bob} third\n" +
+			"[] [] {} fourth\n", buffer.toString());
+	}
+
+	@Test
+	public void testKeyValues() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 64;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("[%K{orderId}] %m %K\n");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		final StringBuilder side = new StringBuilder("buy");
+		log.info().append("accepted")
+			.kv("orderId", 42L)
+			.kv("side", side)
+			.kv("price", 1.5)
+			.kv("partial", false)
+			.commit();
+
+		// fields are not carried over to the next entry
+		log.info().append("rejected").commit();
+
+		GFLogFactory.stop();
+
+		assertEquals(
+			"[42] accepted orderId=42 side=buy price=1.500000000000000 partial=false\n" +
+			"[] rejected \n", buffer.toString());
+	}
+
 	@Test
 	public void testStartAndStop() throws Exception {
 		final AtomicInteger startCalled = new AtomicInteger();
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gflogger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestDroppedEntries {
+
+	@Test
+	public void testUnclaimedDropsAreClaimedAgain() {
+		final DroppedEntries dropped = new DroppedEntries( "test" );
+		assertEquals( 0, dropped.claim() );
+
+		dropped.drop( null );
+		dropped.drop( null );
+		assertEquals( 2, dropped.claim() );
+		assertEquals( 0, dropped.claim() );
+
+		dropped.drop( null );
+		dropped.unclaim( 2 );
+		assertEquals( 3, dropped.claim() );
+		assertEquals( 3, dropped.getCount() );
+	}
+
+	@Test
+	public void testDropsAreClaimedOnce() throws Exception {
+		final DroppedEntries dropped = new DroppedEntries( "test" );
+		final int threads = 4;
+		final int count = 100000;
+		final AtomicLong claimed = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final Thread[] workers = new Thread[threads];
+		for ( int i = 0; i < threads; i++ ) {
+			workers[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch ( InterruptedException e ) {
+						return;
+					}
+					for ( int j = 0; j < count; j++ ) {
+						dropped.drop( null );
+						final long drops = dropped.claim();
+						// give a half of the claims back as the ring is full
+						if ( ( j & 1 ) == 0 ) {
+							claimed.addAndGet( drops );
+						} else {
+							dropped.unclaim( drops );
+						}
+					}
+				}
+			};
+			workers[i].start();
+		}
+		start.countDown();
+		for ( final Thread worker : workers ) {
+			worker.join();
+		}
+		claimed.addAndGet( dropped.claim() );
+
+		assertEquals( (long) threads * count, dropped.getCount() );
+		assertEquals( dropped.getCount(), claimed.get() );
+		assertEquals( 0, dropped.claim() );
+	}
+}
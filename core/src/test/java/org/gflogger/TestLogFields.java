@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gflogger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestLogFields {
+
+	@Test
+	public void testTypedFields() throws Exception {
+		final LogFields fields = new LogFields();
+		assertTrue(fields.isEmpty());
+
+		final StringBuilder value = new StringBuilder("value");
+		assertTrue(fields.add("long", -123L));
+		assertTrue(fields.add("double", 1.5));
+		assertTrue(fields.add("boolean", true));
+		assertTrue(fields.add("chars", value));
+		assertTrue(fields.add("null", (CharSequence) null));
+
+		// value is copied into the field
+		value.setLength(0);
+
+		final LogFields copy = new LogFields();
+		fields.copyTo(copy);
+		fields.clear();
+		assertTrue(fields.isEmpty());
+
+		assertEquals(5, copy.size());
+		assertEquals("long", copy.getKey(0));
+		assertEquals(TypedValues.LONG, copy.getType(0));
+		assertEquals(-123L, copy.getLong(0));
+		assertEquals(TypedValues.DOUBLE, copy.getType(1));
+		assertEquals(1.5, copy.getDouble(1), 0.0);
+		assertEquals(TypedValues.BOOLEAN, copy.getType(2));
+		assertTrue(copy.getBoolean(2));
+		assertEquals(3, copy.indexOf("chars"));
+		assertEquals(TypedValues.CHARS, copy.getType(3));
+		assertEquals("value", copy.getCharSequence(3).toString());
+		assertEquals("null", copy.getCharSequence(4).toString());
+		assertEquals(-1, copy.indexOf("absent"));
+	}
+
+	@Test
+	public void testCopyDoesNotChangeSource() throws Exception {
+		final LogFields fields = new LogFields();
+		fields.add("long", 1L);
+		// a slot which is being changed to chars by the producer
+		fields.types[0] = TypedValues.CHARS;
+
+		final LogFields copy = new LogFields();
+		fields.copyTo(copy);
+		assertNull(fields.chars);
+		assertEquals(TypedValues.NONE, copy.getType(0));
+	}
+
+	@Test
+	public void testLimits() throws Exception {
+		final LogFields fields = new LogFields();
+		for (int i = 0; i < LogFields.MAX_FIELDS; i++) {
+			assertTrue(fields.add("key" + i, i));
+		}
+		assertFalse(fields.add("overflow", 1L));
+		assertEquals(LogFields.MAX_FIELDS, fields.size());
+
+		fields.clear();
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < LogFields.MAX_VALUE_LENGTH + 10; i++) {
+			builder.append('x');
+		}
+		fields.add("long", builder);
+		assertEquals(LogFields.MAX_VALUE_LENGTH, fields.getCharSequence(0).length());
+	}
+}
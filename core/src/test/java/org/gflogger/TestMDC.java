@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gflogger;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestMDC {
+
+	@After
+	public void tearDown() {
+		MDC.clear();
+	}
+
+	@Test
+	public void testTypedValues() throws Exception {
+		final int longKey = MDC.key("mdc.long");
+		final int doubleKey = MDC.key("mdc.double");
+		final int booleanKey = MDC.key("mdc.boolean");
+		final int charsKey = MDC.key("mdc.chars");
+
+		assertEquals(longKey, MDC.key("mdc.long"));
+		assertEquals("mdc.long", MDC.name(longKey));
+
+		MDC.put(longKey, -123L);
+		MDC.put(doubleKey, 1.5);
+		MDC.put(booleanKey, true);
+		MDC.put(charsKey, "value");
+
+		final LogContext context = new LogContext();
+		MDC.context().copyTo(context);
+		MDC.clear();
+		assertTrue(MDC.context().isEmpty());
+
+		assertTrue(context.isLong(longKey));
+		assertEquals(-123L, context.getLong(longKey));
+		assertTrue(context.isDouble(doubleKey));
+		assertEquals(1.5, context.getDouble(doubleKey), 0.0);
+		assertTrue(context.isBoolean(booleanKey));
+		assertTrue(context.getBoolean(booleanKey));
+		assertTrue(context.isCharSequence(charsKey));
+		assertEquals("value", context.getCharSequence(charsKey).toString());
+
+		final ByteBuffer buffer = ByteBuffer.allocate(1 << 10);
+		context.append(buffer, longKey);
+		assertEquals(context.size(longKey), buffer.position());
+		buffer.put((byte) ' ');
+		context.append(buffer, charsKey);
+		assertEquals("-123 value", new String(buffer.array(), 0, buffer.position()));
+	}
+
+	@Test
+	public void testTruncateAndRemove() throws Exception {
+		final int key = MDC.key("mdc.truncated");
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < MDC.MAX_VALUE_LENGTH + 10; i++) {
+			builder.append((char) ('a' + i % 26));
+		}
+		MDC.put(key, builder);
+
+		final LogContext context = MDC.context();
+		assertEquals(MDC.MAX_VALUE_LENGTH, context.getCharSequence(key).length());
+		assertEquals(builder.substring(0, MDC.MAX_VALUE_LENGTH), context.getCharSequence(key).toString());
+
+		MDC.remove(key);
+		assertFalse(context.isSet(key));
+		assertEquals(0, context.size(key));
+	}
+}
@@ -33,9 +33,23 @@ public abstract class AbstractFlushingAppenderHelper<A extends AbstractAsyncAppe
 		assertOutput(firstMessage);
 	}
 
-	private static LogEntryItemImpl createEntry(final String message) throws Exception {
+	static LogEntryItemImpl createEntry(final String message) throws Exception {
+		return createEntry(LogLevel.INFO, message, 0L);
+	}
+
+	static LogEntryItemImpl createEntry(final LogLevel level, final String message) throws Exception {
+		return createEntry(level, message, 0L);
+	}
+
+	static LogEntryItemImpl createEntry(final String message, final long timestamp) throws Exception {
+		return createEntry(LogLevel.INFO, message, timestamp);
+	}
+
+	static LogEntryItemImpl createEntry(final LogLevel level, final String message,
+			final long timestamp) throws Exception {
 		LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
-		entry.setLogLevel( LogLevel.INFO);
+		entry.setLogLevel(level);
+		entry.setTimestamp(timestamp);
 		entry.getBuffer().put(message.getBytes("ascii"));
 		return entry;
 	}
@@ -0,0 +1,108 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestCompressedFileAppender {
+
+	private File file;
+	private CompressedFileAppender appender;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile( "gflogger", ".log.z" );
+
+		final CompressedFileAppenderFactory appenderFactory = new CompressedFileAppenderFactory();
+		appenderFactory.setFileName( file.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( "%m" );
+		appenderFactory.setBlockSize( 256 );
+		appenderFactory.setAppend( false );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+	}
+
+	@After
+	public void tearDown() {
+		appender.stop();
+		file.delete();
+		new File( file.getPath() + CompressedFileAppender.INDEX_SUFFIX ).delete();
+	}
+
+	@Test
+	public void blocksAreCompressedAndIndexed() throws Exception {
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 100; i++ ) {
+			final String message = "record #" + i + " of the test;";
+			expected.append( message );
+			appender.process( createEntry( message, i * 1000L ) );
+		}
+		appender.stop();
+
+		assertTrue( appender.getBlocks() > 1 );
+		assertEquals( expected.length(), appender.getRawBytes() );
+		assertTrue( appender.getCompressedBytes() < appender.getRawBytes() );
+		assertEquals( appender.getCompressedBytes(), file.length() );
+
+		try ( CompressedFileAppender.Reader reader = new CompressedFileAppender.Reader( file ) ) {
+			assertEquals( appender.getBlocks(), reader.getBlockCount() );
+			assertEquals( expected.toString(), readAll( reader ) );
+		}
+	}
+
+	@Test
+	public void readerSeeksToBlockOfTime() throws Exception {
+		for ( int i = 0; i < 100; i++ ) {
+			appender.process( createEntry( "record #" + i + ";", i * 1000L ) );
+		}
+		appender.stop();
+
+		try ( CompressedFileAppender.Reader reader = new CompressedFileAppender.Reader( file ) ) {
+			reader.seek( 50 * 1000L );
+			final String tail = readAll( reader );
+			// the block starts with a whole record not after the time
+			assertTrue( tail, tail.startsWith( "record #" ) );
+			final int first = Integer.parseInt( tail.substring( "record #".length(), tail.indexOf( ';' ) ) );
+			assertTrue( tail, first <= 50 && first > 0 );
+			assertTrue( tail, tail.contains( "record #50;" ) );
+			assertTrue( tail, tail.endsWith( "record #99;" ) );
+		}
+	}
+
+	@Test
+	public void incompressibleBlocksAreStoredWhole() throws Exception {
+		final Random random = new Random( 42 );
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 100; i++ ) {
+			final char[] message = new char[40];
+			for ( int j = 0; j < message.length; j++ ) {
+				message[j] = (char) ( '!' + random.nextInt( '~' - '!' + 1 ) );
+			}
+			expected.append( message );
+			appender.process( createEntry( new String( message ), i * 1000L ) );
+		}
+		appender.stop();
+
+		assertEquals( appender.getCompressedBytes(), file.length() );
+		try ( CompressedFileAppender.Reader reader = new CompressedFileAppender.Reader( file ) ) {
+			assertEquals( expected.toString(), readAll( reader ) );
+		}
+	}
+
+	private static String readAll( final CompressedFileAppender.Reader reader ) throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for ( byte[] block; ( block = reader.nextBlock() ) != null; ) {
+			out.write( block );
+		}
+		return out.toString( "ascii" );
+	}
+}
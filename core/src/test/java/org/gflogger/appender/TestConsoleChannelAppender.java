@@ -0,0 +1,28 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import org.gflogger.LogLevel;
+import org.gflogger.PatternLayout;
+
+import static org.junit.Assert.assertEquals;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestConsoleChannelAppender extends AbstractFlushingAppenderHelper<ConsoleAppender> {
+
+	private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+	@Override
+	protected ConsoleAppender createAppender() {
+		final ConsoleAppender appender = new ConsoleAppender( BUFFER_SIZE, false, LogLevel.INFO, true,
+			Channels.newChannel( stream ), null );
+		appender.setLayout( new PatternLayout( LAYOUT_PATTERN ) );
+		return appender;
+	}
+
+	@Override
+	protected void assertOutput( final String expected ) throws Exception {
+		assertEquals( expected, stream.toString( "ascii" ) );
+	}
+}
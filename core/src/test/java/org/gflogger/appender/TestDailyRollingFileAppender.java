@@ -0,0 +1,88 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestDailyRollingFileAppender {
+
+	private static final String DATE_PATTERN = "'.'yyyy-MM-dd-HH-mm";
+
+	private File folder;
+	private File file;
+	private DailyRollingFileAppender appender;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = Files.createTempDirectory( "rolling" ).toFile();
+		file = new File( folder, "app.log" );
+
+		final DailyRollingFileAppenderFactory factory = new DailyRollingFileAppenderFactory();
+		factory.setFileName( file.getAbsolutePath() );
+		factory.setLayoutPattern( "%m" );
+		factory.setBufferSize( 64 );
+		factory.setDatePattern( DATE_PATTERN );
+		appender = factory.createAppender( null );
+		// prepare the next file right away
+		appender.setPrepareAhead( 2 * 60 * 1000L );
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = folder.listFiles();
+		if ( files != null ) {
+			for ( final File f : files ) {
+				f.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	@Test
+	public void switchesToPreparedFile() throws Exception {
+		final long now = System.currentTimeMillis();
+		appender.start();
+		for ( int i = 0; i < 500 && !appender.isNextFilePrepared(); i++ ) {
+			Thread.sleep( 10 );
+		}
+		assertTrue( appender.isNextFilePrepared() );
+
+		appender.process( createEntry( "first", now ) );
+		appender.process( createEntry( "second", now + 60 * 1000L ) );
+		appender.stop();
+
+		assertRolled( now );
+	}
+
+	@Test
+	public void rollsOverInlineIfNextFileIsNotApplicable() throws Exception {
+		final long now = System.currentTimeMillis();
+		appender.start();
+
+		appender.process( createEntry( "first", now ) );
+		// next file is prepared for the next minute, not for this one
+		appender.process( createEntry( "second", now + 10 * 60 * 1000L ) );
+		appender.stop();
+
+		assertRolled( now );
+	}
+
+	private void assertRolled( final long now ) throws Exception {
+		final String rolledName = "app.log" + new SimpleDateFormat( DATE_PATTERN ).format( now );
+		final String[] names = folder.list();
+		Arrays.sort( names );
+		assertEquals( Arrays.asList( "app.log", rolledName ), Arrays.asList( names ) );
+		assertEquals( "first", new String( Files.readAllBytes( new File( folder, rolledName ).toPath() ) ) );
+		assertEquals( "second", new String( Files.readAllBytes( file.toPath() ) ) );
+	}
+}
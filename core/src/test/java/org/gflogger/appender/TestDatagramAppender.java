@@ -0,0 +1,108 @@
+package org.gflogger.appender;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.gflogger.LogLevel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestDatagramAppender {
+
+	private DatagramChannel receiver;
+	private DatagramAppender appender;
+
+	@Before
+	public void setUp() throws Exception {
+		receiver = DatagramChannel.open();
+		receiver.bind( new InetSocketAddress( "127.0.0.1", 0 ) );
+		receiver.configureBlocking( false );
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if ( appender != null ) appender.stop();
+		receiver.close();
+	}
+
+	@Test
+	public void rawRecordsArePackedIntoDatagrams() throws Exception {
+		appender = createAppender( "raw", 16 );
+
+		for ( int i = 0; i < 5; i++ ) {
+			appender.process( createEntry( LogLevel.INFO, "abcd;", 1234 ) );
+		}
+		appender.flush();
+
+		assertEquals( "abcd;abcd;abcd;", receive() );
+		assertEquals( "abcd;abcd;", receive() );
+		assertEquals( 2, appender.getDatagrams() );
+	}
+
+	@Test
+	public void syslogMessageIsSentPerDatagram() throws Exception {
+		appender = createAppender( "syslog", DatagramAppender.DEFAULT_PACKET_SIZE );
+
+		appender.process( createEntry( LogLevel.INFO, "hello", 1234 ) );
+		appender.process( createEntry( LogLevel.ERROR, "world", 1234 ) );
+
+		final String info = receive();
+		assertTrue( info, info.matches( "<14>1 1970-01-01T00:00:01\\.234Z \\S+ test \\d+ - - hello" ) );
+
+		final String error = receive();
+		assertTrue( error, error.startsWith( "<11>1 1970-01-01T00:00:01.234Z " ) );
+		assertTrue( error, error.endsWith( " - - world" ) );
+	}
+
+	@Test
+	public void octetCountedMessagesShareDatagram() throws Exception {
+		appender = createAppender( "syslog-octet-counting", DatagramAppender.DEFAULT_PACKET_SIZE );
+
+		appender.process( createEntry( LogLevel.WARN, "hello", 1234 ) );
+		appender.process( createEntry( LogLevel.WARN, "world", 1234 ) );
+		appender.flush();
+
+		final String datagram = receive();
+		int idx = 0;
+		for ( final String message : new String[]{ "hello", "world" } ) {
+			final int space = datagram.indexOf( ' ', idx );
+			final int length = Integer.parseInt( datagram.substring( idx, space ) );
+			final String syslog = datagram.substring( space + 1, space + 1 + length );
+			assertTrue( syslog, syslog.startsWith( "<12>1 " ) );
+			assertTrue( syslog, syslog.endsWith( " - - " + message ) );
+			idx = space + 1 + length;
+		}
+		assertEquals( datagram.length(), idx );
+		assertEquals( 1, appender.getDatagrams() );
+	}
+
+	private DatagramAppender createAppender( final String framing, final int packetSize ) {
+		final DatagramAppenderFactory appenderFactory = new DatagramAppenderFactory();
+		appenderFactory.setLayoutPattern( "%m" );
+		appenderFactory.setHost( "127.0.0.1" );
+		appenderFactory.setPort( receiver.socket().getLocalPort() );
+		appenderFactory.setPacketSize( packetSize );
+		appenderFactory.setFraming( framing );
+		appenderFactory.setAppName( "test" );
+		final DatagramAppender appender = appenderFactory.createAppender( null );
+		appender.start();
+		return appender;
+	}
+
+	private String receive() throws Exception {
+		final ByteBuffer buffer = ByteBuffer.allocate( 2048 );
+		final long deadline = System.currentTimeMillis() + 10000;
+		while ( receiver.receive( buffer ) == null ) {
+			assertTrue( "no datagram", System.currentTimeMillis() < deadline );
+			Thread.sleep( 1 );
+		}
+		return new String( buffer.array(), 0, buffer.position(), "ascii" );
+	}
+}
@@ -4,7 +4,9 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
+import org.gflogger.LogLevel;
 import org.junit.After;
+import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 
@@ -33,6 +35,188 @@ public class TestFileAppender extends AbstractFlushingAppenderHelper<FileAppende
 		tempFile.delete();
 	}
 
+	@Test
+	public void writerThreadKeepsOrderOfBuffers() throws Exception {
+		appender.stop();
+
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setAppend( false );
+		appenderFactory.setBufferCount( 3 );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 1000; i++ ) {
+			final String message = i + ";";
+			expected.append( message );
+			appender.process( createEntry( LogLevel.INFO, message ) );
+		}
+		appender.stop();
+
+		assertOutput( expected.toString() );
+	}
+
+	@Test
+	public void everyFlushIsSyncedWithAllItsRecords() throws Exception {
+		appender.stop();
+		appender = createAppender( FileAppender.Sync.EVERY_FLUSH );
+
+		appender.process( createEntry( LogLevel.INFO, "a" ) );
+		appender.process( createEntry( LogLevel.INFO, "b" ) );
+		appender.process( createEntry( LogLevel.INFO, "c" ) );
+		appender.flush();
+
+		assertEquals( 1, appender.getSyncs() );
+		assertEquals( 3, appender.getSyncedRecords() );
+	}
+
+	@Test
+	public void errorRecordIsSynced() throws Exception {
+		appender.stop();
+		appender = createAppender( FileAppender.Sync.ON_ERROR );
+
+		appender.process( createEntry( LogLevel.INFO, "a" ) );
+		appender.flush();
+		assertEquals( 0, appender.getSyncs() );
+
+		appender.process( createEntry( LogLevel.INFO, "b" ) );
+		appender.process( createEntry( LogLevel.ERROR, "c" ) );
+		appender.flush();
+
+		assertEquals( 1, appender.getSyncs() );
+		// the first record shares the commit as well
+		assertEquals( 3, appender.getSyncedRecords() );
+	}
+
+	@Test
+	public void preallocatedFileIsTrimmedOnStop() throws Exception {
+		appender.stop();
+
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setAppend( false );
+		appenderFactory.setBufferCount( 2 );
+		appenderFactory.setPreallocate( 64 );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 10; i++ ) {
+			expected.append( "abc;" );
+			appender.process( createEntry( LogLevel.INFO, "abc;" ) );
+		}
+		appender.flush();
+		appender.awaitWrites();
+		assertEquals( 64, tempFile.length() );
+
+		appender.stop();
+		assertOutput( expected.toString() );
+	}
+
+	@Test
+	public void zeroTailIsTrimmedOnAppend() throws Exception {
+		appender.stop();
+		Files.write( Paths.get( tempFile.getAbsolutePath() ), "abc;\0\0\0\0".getBytes( "ascii" ) );
+
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setPreallocate( 1024 );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		appender.process( createEntry( LogLevel.INFO, "def;" ) );
+		appender.stop();
+
+		assertOutput( "abc;def;" );
+	}
+
+	@Test
+	public void zeroTailIsKeptWithoutPreallocation() throws Exception {
+		appender.stop();
+		Files.write( Paths.get( tempFile.getAbsolutePath() ), "abc;\0\0".getBytes( "ascii" ) );
+
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		appender.process( createEntry( LogLevel.INFO, "def;" ) );
+		appender.stop();
+
+		assertOutput( "abc;\0\0def;" );
+	}
+
+	@Test
+	public void segmentsAreStoredTogether() throws Exception {
+		appender.stop();
+
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setAppend( false );
+		appenderFactory.setSegments( 4 );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 10; i++ ) {
+			expected.append( "abc;" );
+			appender.process( createEntry( LogLevel.INFO, "abc;" ) );
+		}
+		// 10 entries do not fit a single segment, but fit all of them
+		assertEquals( 0, tempFile.length() );
+
+		appender.flush();
+		assertOutput( expected.toString() );
+	}
+
+	@Test
+	public void segmentsOfWriterThreadKeepOrder() throws Exception {
+		appender.stop();
+
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setAppend( false );
+		appenderFactory.setBufferCount( 2 );
+		appenderFactory.setSegments( 3 );
+		appenderFactory.setPreallocate( 100 );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 1000; i++ ) {
+			final String message = i + ";";
+			expected.append( message );
+			appender.process( createEntry( LogLevel.INFO, message ) );
+		}
+		appender.stop();
+
+		assertOutput( expected.toString() );
+	}
+
+	private FileAppender createAppender( final FileAppender.Sync sync ) throws Exception {
+		final FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setSync( sync.name() );
+		final FileAppender appender = appenderFactory.createAppender( null );
+		appender.start();
+		return appender;
+	}
+
 
 	protected void assertOutput( String expected ) throws Exception {
 		final byte[] bytes = Files.readAllBytes( Paths.get( tempFile.getAbsolutePath() ) );
@@ -0,0 +1,86 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import org.gflogger.LogLevel;
+import org.gflogger.PatternLayout;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestFlightRecorderAppender {
+
+	private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+	private FlightRecorderAppender appender;
+
+	@After
+	public void tearDown() {
+		if ( appender != null ) appender.stop();
+	}
+
+	@Test
+	public void historyIsDumpedOnError() throws Exception {
+		appender = createAppender( 1 << 10 );
+
+		appender.process( createEntry( LogLevel.DEBUG, "a" ) );
+		appender.process( createEntry( LogLevel.INFO, "b" ) );
+		appender.process( createEntry( LogLevel.WARN, "c" ) );
+		appender.flush();
+		assertEquals( "", output() );
+
+		appender.process( createEntry( LogLevel.ERROR, "d" ) );
+		assertEquals( "a;b;c;d;", output() );
+		assertEquals( 1, appender.getDumps() );
+
+		// the history has been cleared
+		appender.process( createEntry( LogLevel.DEBUG, "e" ) );
+		appender.process( createEntry( LogLevel.FATAL, "f" ) );
+		assertEquals( "a;b;c;d;e;f;", output() );
+	}
+
+	@Test
+	public void oldestEntriesAreEvicted() throws Exception {
+		// every entry takes 4 + 4 bytes, the ring keeps 4 of them
+		appender = createAppender( 35 );
+
+		for ( int i = 0; i < 10; i++ ) {
+			appender.process( createEntry( LogLevel.DEBUG, "00" + i ) );
+		}
+		appender.process( createEntry( LogLevel.ERROR, "err" ) );
+
+		assertEquals( "007;008;009;err;", output() );
+		assertEquals( 7, appender.getEvictedEntries() );
+	}
+
+	@Test
+	public void dumpIsServedOnFlush() throws Exception {
+		appender = createAppender( 1 << 10 );
+
+		appender.process( createEntry( LogLevel.INFO, "a" ) );
+		appender.process( createEntry( LogLevel.INFO, "b" ) );
+		appender.requestDump();
+		assertEquals( "", output() );
+
+		appender.flush();
+		assertEquals( "a;b;", output() );
+		assertEquals( 1, appender.getDumps() );
+	}
+
+	private FlightRecorderAppender createAppender( final int recordingSize ) {
+		final ConsoleAppender target = new ConsoleAppender( 1 << 10, false, LogLevel.TRACE, true,
+			Channels.newChannel( stream ), null );
+		final FlightRecorderAppender appender =
+			new FlightRecorderAppender( 1 << 10, recordingSize, target, false, LogLevel.TRACE, true );
+		appender.setLayout( new PatternLayout( "%m;" ) );
+		appender.start();
+		return appender;
+	}
+
+	private String output() throws Exception {
+		return stream.toString( "ascii" );
+	}
+}
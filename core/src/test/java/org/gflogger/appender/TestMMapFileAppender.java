@@ -0,0 +1,119 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestMMapFileAppender {
+
+	private File tempFile;
+
+	@Before
+	public void setUp() throws Exception {
+		tempFile = File.createTempFile( "temp-file-name", ".tmp" );
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+	}
+
+	private MMapFileAppender createAppender( final int mapSize, final boolean append ) {
+		final MMapFileAppenderFactory appenderFactory = new MMapFileAppenderFactory();
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( "%m" );
+		appenderFactory.setBufferSize( 16 );
+		appenderFactory.setMapSize( mapSize );
+		appenderFactory.setAppend( append );
+		final MMapFileAppender appender = appenderFactory.createAppender( null );
+		appender.start();
+		return appender;
+	}
+
+	@Test
+	public void fileIsTruncatedToWrittenLengthOnStop() throws Exception {
+		final MMapFileAppender appender = createAppender( 1 << 12, false );
+		appender.process( createEntry( "abc" ) );
+		appender.process( createEntry( "def" ) );
+		assertEquals( 6, appender.length() );
+		appender.stop();
+
+		assertOutput( "abcdef" );
+	}
+
+	@Test
+	public void windowIsRemappedWhenThereIsNoSpace() throws Exception {
+		// window is smaller than a single entry
+		final MMapFileAppender appender = createAppender( 4, false );
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < 10; i++ ) {
+			final String message = "message-" + i + ";";
+			expected.append( message );
+			appender.process( createEntry( message ) );
+		}
+		appender.stop();
+
+		assertOutput( expected.toString() );
+	}
+
+	@Test
+	public void appendContinuesAfterExistingData() throws Exception {
+		MMapFileAppender appender = createAppender( 1 << 12, false );
+		appender.process( createEntry( "first;" ) );
+		appender.stop();
+
+		appender = createAppender( 1 << 12, true );
+		appender.process( createEntry( "second;" ) );
+		appender.stop();
+
+		assertOutput( "first;second;" );
+
+		appender = createAppender( 1 << 12, false );
+		appender.process( createEntry( "third;" ) );
+		appender.stop();
+
+		assertOutput( "third;" );
+	}
+
+	@Test
+	public void longEntryIsDiscardedWhenWindowCantBeMapped() throws Exception {
+		final MMapFileAppenderFactory appenderFactory = new MMapFileAppenderFactory() {
+			@Override
+			protected MMapFileAppender createAppender() {
+				return new MMapFileAppender( bufferSize, multibyte, logLevel, enabled ) {
+					@Override
+					protected boolean remap( final int size ) {
+						return false;
+					}
+				};
+			}
+		};
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( "%m" );
+		appenderFactory.setBufferSize( 16 );
+		appenderFactory.setMapSize( 4 );
+		appenderFactory.setAppend( false );
+		final MMapFileAppender appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		appender.process( createEntry( "abc" ) );
+		// it is longer than the buffer size
+		appender.process( createEntry( "the entry which can't be mapped;" ) );
+		appender.stop();
+
+		assertOutput( "abc" );
+	}
+
+	private void assertOutput( final String expected ) throws Exception {
+		final byte[] bytes = Files.readAllBytes( Paths.get( tempFile.getAbsolutePath() ) );
+		assertEquals( expected, new String( bytes ) );
+	}
+}
@@ -0,0 +1,142 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.MDC;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestRoutingFileAppender {
+
+	private File folder;
+	private RoutingFileAppender appender;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = Files.createTempDirectory( "gflogger" ).toFile();
+	}
+
+	@After
+	public void tearDown() {
+		if ( appender != null ) appender.stop();
+		for ( final File file : folder.listFiles() ) {
+			file.delete();
+		}
+		folder.delete();
+		MDC.clear();
+	}
+
+	@Test
+	public void entriesAreRoutedByCategory() throws Exception {
+		appender = createAppender( "category", 16 );
+
+		appender.process( createRoutedEntry( "EURUSD", "1" ) );
+		appender.process( createRoutedEntry( "GBP/USD", "2" ) );
+		appender.process( createRoutedEntry( "EURUSD", "3" ) );
+		appender.process( createRoutedEntry( null, "4" ) );
+		appender.stop();
+
+		assertEquals( "1;3;", read( "EURUSD" ) );
+		assertEquals( "2;", read( "GBP_USD" ) );
+		assertEquals( "4;", read( "default" ) );
+		assertEquals( 3, appender.getOpened() );
+	}
+
+	@Test
+	public void leastRecentlyUsedRouteIsClosed() throws Exception {
+		appender = createAppender( "category", 2 );
+
+		appender.process( createRoutedEntry( "a", "1" ) );
+		appender.process( createRoutedEntry( "b", "2" ) );
+		appender.process( createRoutedEntry( "a", "3" ) );
+		// b is the least recently used one
+		appender.process( createRoutedEntry( "c", "4" ) );
+		assertEquals( 2, appender.getRoutes() );
+		assertEquals( 1, appender.getEvicted() );
+		assertEquals( "2;", read( "b" ) );
+
+		appender.process( createRoutedEntry( "b", "5" ) );
+		appender.stop();
+
+		assertEquals( "1;3;", read( "a" ) );
+		assertEquals( "2;5;", read( "b" ) );
+		assertEquals( "4;", read( "c" ) );
+		assertEquals( 4, appender.getOpened() );
+		assertEquals( 2, appender.getEvicted() );
+	}
+
+	@Test
+	public void entriesAreRoutedByMDC() throws Exception {
+		appender = createAppender( "mdc:client", 16 );
+
+		MDC.put( "client", "acme" );
+		appender.process( createRoutedEntry( "a", "1" ) );
+		MDC.put( "client", ".." );
+		appender.process( createRoutedEntry( "a", "2" ) );
+		MDC.remove( "client" );
+		appender.process( createRoutedEntry( "a", "3" ) );
+		appender.stop();
+
+		assertEquals( "1;", read( "acme" ) );
+		assertEquals( "2;", read( "_." ) );
+		assertEquals( "3;", read( "default" ) );
+	}
+
+	@Test
+	public void fileIsTruncatedOnFirstOpenOnly() throws Exception {
+		Files.write( new File( folder, "a.log" ).toPath(), "0;".getBytes( "ascii" ) );
+		appender = createAppender( "category", 1, false );
+
+		// each entry evicts the route of the other key
+		appender.process( createRoutedEntry( "a", "1" ) );
+		appender.process( createRoutedEntry( "b", "2" ) );
+		appender.process( createRoutedEntry( "a", "3" ) );
+		appender.process( createRoutedEntry( "b", "4" ) );
+		appender.stop();
+
+		assertEquals( "1;3;", read( "a" ) );
+		assertEquals( "2;4;", read( "b" ) );
+		assertEquals( 4, appender.getOpened() );
+		assertEquals( 3, appender.getEvicted() );
+	}
+
+	@Test( expected = IllegalStateException.class )
+	public void atLeastOneRouteIsExpected() throws Exception {
+		createAppender( "category", 0 );
+	}
+
+	private RoutingFileAppender createAppender( final String routeBy, final int maxRoutes ) {
+		return createAppender( routeBy, maxRoutes, true );
+	}
+
+	private RoutingFileAppender createAppender( final String routeBy, final int maxRoutes, final boolean append ) {
+		final RoutingFileAppenderFactory appenderFactory = new RoutingFileAppenderFactory();
+		appenderFactory.setAppend( append );
+		appenderFactory.setFileName( folder.getAbsolutePath() + "/%k.log" );
+		appenderFactory.setLayoutPattern( "%m;" );
+		appenderFactory.setRouteBy( routeBy );
+		appenderFactory.setMaxRoutes( maxRoutes );
+		appenderFactory.setRouteBufferSize( 256 );
+		final RoutingFileAppender appender = appenderFactory.createAppender( null );
+		appender.start();
+		return appender;
+	}
+
+	private String read( final String key ) throws Exception {
+		return new String( Files.readAllBytes( new File( folder, key + ".log" ).toPath() ), "ascii" );
+	}
+
+	private static LogEntryItemImpl createRoutedEntry( final String category, final String message ) throws Exception {
+		final LogEntryItemImpl entry = createEntry( message, System.currentTimeMillis() );
+		entry.setCategoryName( category );
+		MDC.context().copyTo( entry.getContext() );
+		return entry;
+	}
+}
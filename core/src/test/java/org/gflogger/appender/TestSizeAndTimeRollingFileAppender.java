@@ -0,0 +1,129 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestSizeAndTimeRollingFileAppender {
+
+	private File folder;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = Files.createTempDirectory( "rolling" ).toFile();
+		file = new File( folder, "app.log" );
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = folder.listFiles();
+		if ( files != null ) {
+			for ( final File f : files ) {
+				f.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	private SizeAndTimeRollingFileAppenderFactory createFactory() {
+		final SizeAndTimeRollingFileAppenderFactory factory = new SizeAndTimeRollingFileAppenderFactory();
+		factory.setFileName( file.getAbsolutePath() );
+		factory.setLayoutPattern( "%m" );
+		factory.setBufferSize( 64 );
+		return factory;
+	}
+
+	@Test
+	public void rollsOverBySizeAndCompresses() throws Exception {
+		final SizeAndTimeRollingFileAppenderFactory factory = createFactory();
+		factory.setMaxFileSize( 10 );
+		factory.setCompression( "gz" );
+		final SizeAndTimeRollingFileAppender appender = factory.createAppender( null );
+		appender.start();
+
+		appender.process( createEntry( "0123456789", 0 ) );
+		appender.process( createEntry( "abcdefghij", 0 ) );
+		appender.process( createEntry( "tail", 0 ) );
+		// waits for the background compression
+		appender.stop();
+
+		assertEquals( "0123456789", gunzip( new File( folder, "app.log.0.gz" ) ) );
+		assertEquals( "abcdefghij", gunzip( new File( folder, "app.log.1.gz" ) ) );
+		assertEquals( "tail", new String( Files.readAllBytes( file.toPath() ) ) );
+		assertEquals( Arrays.asList( "app.log", "app.log.0.gz", "app.log.1.gz" ), list() );
+	}
+
+	@Test
+	public void rollsOverByTime() throws Exception {
+		final SizeAndTimeRollingFileAppenderFactory factory = createFactory();
+		factory.setDatePattern( "'.'yyyy-MM-dd-HH-mm" );
+		final SizeAndTimeRollingFileAppender appender = factory.createAppender( null );
+		appender.start();
+
+		final long now = System.currentTimeMillis();
+		appender.process( createEntry( "first", now ) );
+		appender.process( createEntry( "second", now + 60 * 1000L ) );
+		appender.stop();
+
+		final String suffix = new SimpleDateFormat( "'.'yyyy-MM-dd-HH-mm" ).format( now );
+		final File rolled = new File( folder, "app.log" + suffix + ".0" );
+		assertTrue( rolled.exists() );
+		assertEquals( "first", new String( Files.readAllBytes( rolled.toPath() ) ) );
+		assertEquals( "second", new String( Files.readAllBytes( file.toPath() ) ) );
+	}
+
+	@Test
+	public void retentionDeletesOldestFiles() throws Exception {
+		final long now = System.currentTimeMillis();
+		for ( int i = 0; i < 5; i++ ) {
+			final File rolled = new File( folder, "app.log." + i );
+			Files.write( rolled.toPath(), "0123456789".getBytes() );
+			rolled.setLastModified( now - ( 5 - i ) * 60 * 1000L );
+		}
+		final File expired = new File( folder, "app.log.expired" );
+		Files.write( expired.toPath(), "0".getBytes() );
+		expired.setLastModified( now - 24 * 60 * 60 * 1000L );
+
+		final SizeAndTimeRollingFileAppenderFactory factory = createFactory();
+		factory.setTotalSizeCap( 35 );
+		factory.setMaxAge( 60 * 60 * 1000L );
+		final SizeAndTimeRollingFileAppender appender = factory.createAppender( null );
+		// retention is applied on start
+		appender.start();
+		appender.stop();
+
+		// only three the newest rolled files fit into the cap
+		assertEquals( Arrays.asList( "app.log", "app.log.2", "app.log.3", "app.log.4" ), list() );
+	}
+
+	private java.util.List<String> list() {
+		final String[] names = folder.list();
+		Arrays.sort( names );
+		return Arrays.asList( names );
+	}
+
+	private static String gunzip( final File file ) throws Exception {
+		try ( InputStream in = new GZIPInputStream( Files.newInputStream( file.toPath() ) ) ) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			for ( int read; ( read = in.read( buffer ) ) >= 0; ) {
+				out.write( buffer, 0, read );
+			}
+			return new String( out.toByteArray() );
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestSocketAppender {
+
+	private File spoolFile;
+	private ServerSocketChannel server;
+	private SocketAppender appender;
+
+	@Before
+	public void setUp() throws Exception {
+		spoolFile = File.createTempFile( "gflogger", ".spool" );
+		spoolFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if ( appender != null ) appender.stop();
+		if ( server != null ) server.close();
+		spoolFile.delete();
+	}
+
+	@Test
+	public void entriesAreSentToCollector() throws Exception {
+		server = bind( 0 );
+		appender = createAppender( server.socket().getLocalPort() );
+		appender.start();
+
+		final SocketChannel client = server.accept();
+		appender.process( createEntry( "a;" ) );
+		appender.process( createEntry( "b;" ) );
+		awaitSent();
+
+		assertEquals( "a;b;", read( client, 4 ) );
+		assertEquals( 1, appender.getConnects() );
+	}
+
+	@Test
+	public void entriesAreSpooledAndReplayedOnReconnect() throws Exception {
+		final ServerSocketChannel probe = bind( 0 );
+		final int port = probe.socket().getLocalPort();
+		probe.close();
+
+		appender = createAppender( port );
+		appender.start();
+
+		appender.process( createEntry( "a;" ) );
+		appender.process( createEntry( "b;" ) );
+		appender.flush();
+		assertFalse( appender.isConnected() );
+		assertEquals( 4, appender.getSpooledBytes() );
+
+		server = bind( port );
+		appender.process( createEntry( "c;" ) );
+		awaitSent();
+
+		final SocketChannel client = server.accept();
+		assertEquals( "a;b;c;", read( client, 6 ) );
+		assertEquals( 0, appender.getDroppedBytes() );
+	}
+
+	@Test
+	public void spoolIsBoundedAndSurvivesRestart() throws Exception {
+		// a batch of 2 bytes along with its length fits
+		SocketAppender.Spool spool = new SocketAppender.Spool( spoolFile, 16 + 2 * ( 4 + 2 ) );
+		assertTrue( spool.append( ByteBuffer.wrap( "a;".getBytes( "ascii" ) ) ) );
+		// a batch is spooled as a whole or not at all
+		assertFalse( spool.append( ByteBuffer.wrap( "b;c;".getBytes( "ascii" ) ) ) );
+		assertEquals( 2, spool.size() );
+		assertTrue( spool.append( ByteBuffer.wrap( "b;".getBytes( "ascii" ) ) ) );
+		spool.close();
+		assertTrue( spoolFile.exists() );
+
+		spool = new SocketAppender.Spool( spoolFile, 16 + 2 * ( 4 + 2 ) );
+		assertEquals( 4, spool.size() );
+		final ByteBufferChannel channel = new ByteBufferChannel( 16 );
+		spool.drainTo( channel );
+		assertEquals( 0, spool.size() );
+		spool.close();
+
+		assertEquals( "a;b;", channel.toString() );
+		assertFalse( spoolFile.exists() );
+	}
+
+	@Test
+	public void batchCutByLostConnectionIsResentAsWhole() throws Exception {
+		final SocketAppender.Spool spool = new SocketAppender.Spool( spoolFile, 1 << 10 );
+		// the length and the head of the first batch have been sent before it is spooled
+		assertTrue( spool.append( batch( "a;b;" ), 5 ) );
+		assertTrue( spool.append( batch( "c;" ) ) );
+
+		// the connection is lost in the middle of the first batch
+		final ByteBufferChannel lost = new ByteBufferChannel( 2 );
+		spool.drainTo( lost );
+		try {
+			spool.drainTo( lost );
+			fail( "connection is expected to be lost" );
+		} catch ( IOException e ) {
+			spool.rewind();
+		}
+		assertEquals( 4 + 4 + 4 + 2, spool.size() );
+
+		final ByteBufferChannel next = new ByteBufferChannel( 64 );
+		spool.drainTo( next );
+		assertEquals( 0, spool.size() );
+		spool.close();
+
+		final DataInputStream in = new DataInputStream( new ByteArrayInputStream( next.toByteArray() ) );
+		assertEquals( "a;b;", readBatch( in ) );
+		assertEquals( "c;", readBatch( in ) );
+		assertEquals( 0, in.available() );
+	}
+
+	@Test
+	public void spoolIsLocked() throws Exception {
+		final SocketAppender.Spool spool = new SocketAppender.Spool( spoolFile, 16 + 4 );
+		try {
+			new SocketAppender.Spool( spoolFile, 16 + 4 );
+			fail( "spool is expected to be locked" );
+		} catch ( IOException e ) {
+			// expected
+		} finally {
+			spool.close();
+		}
+	}
+
+	private SocketAppender createAppender( final int port ) {
+		final SocketAppenderFactory appenderFactory = new SocketAppenderFactory();
+		appenderFactory.setLayoutPattern( "%m" );
+		appenderFactory.setBufferSize( 1024 );
+		appenderFactory.setPort( port );
+		appenderFactory.setHost( "127.0.0.1" );
+		appenderFactory.setSpoolFile( spoolFile.getAbsolutePath() );
+		appenderFactory.setSpoolSize( 1 << 16 );
+		appenderFactory.setReconnectDelay( 10 );
+		appenderFactory.setMaxReconnectDelay( 10 );
+		return appenderFactory.createAppender( null );
+	}
+
+	private void awaitSent() throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 10000;
+		do {
+			appender.flush();
+			if ( appender.isConnected() && appender.getSpooledBytes() == 0 ) return;
+			Thread.sleep( 10 );
+		} while ( System.currentTimeMillis() < deadline );
+	}
+
+	private static ServerSocketChannel bind( final int port ) throws IOException {
+		final ServerSocketChannel server = ServerSocketChannel.open();
+		server.socket().setReuseAddress( true );
+		server.bind( new InetSocketAddress( "127.0.0.1", port ) );
+		return server;
+	}
+
+	private static ByteBuffer batch( final String message ) throws IOException {
+		final byte[] bytes = message.getBytes( "ascii" );
+		final ByteBuffer buffer = ByteBuffer.allocate( 4 + bytes.length );
+		buffer.putInt( bytes.length ).put( bytes ).flip();
+		return buffer;
+	}
+
+	private static String readBatch( final DataInputStream in ) throws IOException {
+		final byte[] batch = new byte[in.readInt()];
+		in.readFully( batch );
+		return new String( batch, "ascii" );
+	}
+
+	private static String read( final SocketChannel client, final int length ) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate( length );
+		client.socket().setSoTimeout( 10000 );
+		while ( buffer.hasRemaining() && client.read( buffer ) >= 0 );
+		return new String( buffer.array(), 0, buffer.position(), "ascii" );
+	}
+
+	private static final class ByteBufferChannel implements WritableByteChannel {
+		private final ByteBuffer buffer;
+
+		ByteBufferChannel( final int capacity ) {
+			buffer = ByteBuffer.allocate( capacity );
+		}
+
+		@Override
+		public int write( final ByteBuffer src ) throws IOException {
+			// it is cut once it is full
+			if ( !buffer.hasRemaining() ) throw new IOException( "connection is lost" );
+			final int length = Math.min( src.remaining(), buffer.remaining() );
+			for ( int i = 0; i < length; i++ ) {
+				buffer.put( src.get() );
+			}
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+			// nothing
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf( buffer.array(), buffer.position() );
+		}
+
+		@Override
+		public String toString() {
+			return new String( buffer.array(), 0, buffer.position() );
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.gflogger.appender;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gflogger.appender.AbstractFlushingAppenderHelper.createEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestUnixSocketAppender {
+
+	private File socketFile;
+	private File spoolFile;
+	private ServerSocketChannel server;
+	private UnixSocketAppender appender;
+
+	@Before
+	public void setUp() throws Exception {
+		Assume.assumeTrue( UnixSocketAppender.isSupported() );
+		socketFile = File.createTempFile( "gflogger", ".sock" );
+		socketFile.delete();
+		spoolFile = File.createTempFile( "gflogger", ".spool" );
+		spoolFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if ( appender != null ) appender.stop();
+		if ( server != null ) server.close();
+		if ( socketFile != null ) socketFile.delete();
+		if ( spoolFile != null ) spoolFile.delete();
+	}
+
+	@Test
+	public void batchesAreLengthPrefixedAndReplayed() throws Exception {
+		final UnixSocketAppenderFactory appenderFactory = new UnixSocketAppenderFactory();
+		appenderFactory.setLayoutPattern( "%m" );
+		appenderFactory.setBufferSize( 1024 );
+		appenderFactory.setPath( socketFile.getAbsolutePath() );
+		appenderFactory.setSpoolFile( spoolFile.getAbsolutePath() );
+		appenderFactory.setSpoolSize( 1 << 16 );
+		appenderFactory.setReconnectDelay( 10 );
+		appenderFactory.setMaxReconnectDelay( 10 );
+		appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		// there is no agent yet
+		appender.process( createEntry( "a;" ) );
+		appender.process( createEntry( "b;" ) );
+		appender.flush();
+		assertEquals( 4 + 4, appender.getSpooledBytes() );
+
+		server = bind( socketFile.getAbsolutePath() );
+		appender.process( createEntry( "c;" ) );
+		final long deadline = System.currentTimeMillis() + 10000;
+		while ( !( appender.isConnected() && appender.getSpooledBytes() == 0 ) ) {
+			assertTrue( System.currentTimeMillis() < deadline );
+			appender.flush();
+			Thread.sleep( 10 );
+		}
+
+		final SocketChannel client = server.accept();
+		final DataInputStream in = new DataInputStream( Channels.newInputStream( client ) );
+		assertEquals( "a;b;", readBatch( in ) );
+		assertEquals( "c;", readBatch( in ) );
+	}
+
+	private static String readBatch( final DataInputStream in ) throws Exception {
+		final byte[] batch = new byte[in.readInt()];
+		in.readFully( batch );
+		return new String( batch, "ascii" );
+	}
+
+	private static ServerSocketChannel bind( final String path ) throws Exception {
+		final ProtocolFamily unix = StandardProtocolFamily.valueOf( "UNIX" );
+		final ServerSocketChannel server = (ServerSocketChannel) ServerSocketChannel.class
+			.getMethod( "open", ProtocolFamily.class ).invoke( null, unix );
+		final SocketAddress address = (SocketAddress) Class.forName( "java.net.UnixDomainSocketAddress" )
+			.getMethod( "of", String.class ).invoke( null, path );
+		server.bind( address );
+		return server;
+	}
+}
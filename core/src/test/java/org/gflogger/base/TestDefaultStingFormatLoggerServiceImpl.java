@@ -1,7 +1,14 @@
 package org.gflogger.base;
 
 import org.gflogger.*;
+import org.gflogger.appender.AbstractAppenderFactory;
+import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.appender.AppenderFactory;
+import org.gflogger.util.SizeHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -20,4 +27,100 @@ public class TestDefaultStingFormatLoggerServiceImpl extends TestStringFormatLog
 			new LoggerServiceImpl(4, maxMessageSize, objectFormatterFactory, loggers, factories);
 		return loggerService;
 	}
+
+	@Test
+	public void testIdleEntryIsFlushed() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CollectingAppenderFactory factory = new CollectingAppenderFactory();
+		final LoggerServiceImpl loggerService = (LoggerServiceImpl) createLoggerService( 32,
+			new GFLoggerBuilder( LogLevel.INFO, "com.db", factory ), factory );
+		GFLogFactory.init( loggerService );
+
+		// it is flushed once the ring has been drained, not on stop
+		log.info().append( "message" ).commit();
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while ( factory.output.length() == 0 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 1L );
+		}
+		assertEquals( "message" + Layout.LINE_SEP, factory.output.toString() );
+
+		final SizeHistogram flushSizes = loggerService.getFlushSizes();
+		assertEquals( 1, flushSizes.getCount() );
+		assertEquals( "message".length(), flushSizes.getMax() );
+
+		GFLogFactory.stop();
+	}
+
+	@Test
+	public void testFlushSize() throws Exception {
+		// 7 bytes per entry, it is flushed once 64 bytes are pending
+		assertFlushSizes( false, 10, 70 );
+	}
+
+	@Test
+	public void testMultibyteFlushSize() throws Exception {
+		// 14 bytes per entry, it is flushed once 64 bytes are pending
+		assertFlushSizes( true, 20, 70 );
+	}
+
+	private void assertFlushSizes( final boolean multibyte, final int flushCount, final int maxFlushSize ) throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CollectingAppenderFactory factory = new CollectingAppenderFactory();
+		factory.setMultibyte( multibyte );
+		System.setProperty( "gflogger.flush.size", "64" );
+		System.setProperty( "gflogger.flush.interval", "10000000" );
+		final LoggerServiceImpl loggerService;
+		try {
+			loggerService = (LoggerServiceImpl) createLoggerService( 32,
+				new GFLoggerBuilder( LogLevel.INFO, "com.db", factory ), factory );
+		} finally {
+			System.clearProperty( "gflogger.flush.size" );
+			System.clearProperty( "gflogger.flush.interval" );
+		}
+		GFLogFactory.init( loggerService );
+
+		final int count = 100;
+		for ( int i = 0; i < count; i++ ) {
+			log.info().append( "message" ).commit();
+		}
+		GFLogFactory.stop();
+
+		final SizeHistogram flushSizes = loggerService.getFlushSizes();
+		assertEquals( flushCount, flushSizes.getCount() );
+		assertEquals( maxFlushSize, flushSizes.getMax() );
+		assertTrue( factory.output.length() > 0 );
+	}
+
+	private static class CollectingAppenderFactory extends AbstractAppenderFactory<Appender> {
+		private final StringBuffer output = new StringBuffer();
+
+		CollectingAppenderFactory() {
+			setLogLevel( LogLevel.INFO );
+		}
+
+		@Override
+		public Appender createAppender( final Class<? extends LoggerService> loggerServiceClass ) {
+			preinit( loggerServiceClass );
+			final AbstractAsyncAppender appender = new AbstractAsyncAppender( "collecting", 1024, multibyte, LogLevel.TRACE, true ) {
+				@Override
+				public void flush( final boolean force ) {
+					if ( multibyte ) {
+						charBuffer.flip();
+						output.append( charBuffer );
+						charBuffer.clear();
+						return;
+					}
+					byteBuffer.flip();
+					while ( byteBuffer.hasRemaining() ) {
+						output.append( (char) byteBuffer.get() );
+					}
+					byteBuffer.clear();
+				}
+			};
+			appender.setLayout( layout );
+			return appender;
+		}
+	}
 }
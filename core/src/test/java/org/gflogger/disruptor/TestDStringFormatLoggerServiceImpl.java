@@ -1,7 +1,21 @@
 package org.gflogger.disruptor;
 
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.gflogger.*;
+import org.gflogger.appender.AbstractAppender;
+import org.gflogger.appender.AbstractAppenderFactory;
+import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.appender.AppenderFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -19,4 +33,260 @@ public class TestDStringFormatLoggerServiceImpl extends TestStringFormatLoggerSe
 		return new LoggerServiceImpl(4, maxMessageSize, objectFormatterFactory, loggers, factories);
 	}
 
+	@Test
+	public void testDedicatedConsumer() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final RecordingAppenderFactory shared = new RecordingAppenderFactory( "shared", null );
+		final RecordingAppenderFactory dedicated = new RecordingAppenderFactory( "dedicated", null );
+		dedicated.setConsumer( "dedicated" );
+
+		final LoggerService loggerService = createLoggerService( 32,
+			new GFLoggerBuilder( LogLevel.INFO, "com.db", shared, dedicated ), shared, dedicated );
+		GFLogFactory.init( loggerService );
+
+		final int count = 100;
+		for ( int i = 0; i < count; i++ ) {
+			log.info().append( "message" ).commit();
+		}
+
+		GFLogFactory.stop();
+
+		assertEquals( count, shared.processed.get() );
+		assertEquals( count, dedicated.processed.get() );
+		assertEquals( 1, shared.threads.size() );
+		assertEquals( 1, dedicated.threads.size() );
+		assertTrue( Collections.disjoint( shared.threads, dedicated.threads ) );
+	}
+
+	@Test
+	public void testLossyConsumer() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final RecordingAppenderFactory shared = new RecordingAppenderFactory( "shared", null );
+		final RecordingAppenderFactory lossy = new RecordingAppenderFactory( "lossy", release );
+		lossy.setConsumer( "lossy" );
+
+		final LoggerServiceImpl loggerService = (LoggerServiceImpl) createLoggerService( 32,
+			new GFLoggerBuilder( LogLevel.INFO, "com.db", shared, lossy ), shared, lossy );
+		GFLogFactory.init( loggerService );
+
+		// the lossy appender is blocked, but it does not block the ring
+		final int count = 100;
+		for ( int i = 0; i < count; i++ ) {
+			log.info().append( "message" ).commit();
+		}
+		release.countDown();
+
+		GFLogFactory.stop();
+
+		assertEquals( count, shared.processed.get() );
+		assertTrue( loggerService.getDroppedEntries() > 0 );
+		assertEquals( count, lossy.processed.get() + loggerService.getDroppedEntries() );
+	}
+
+	@Test
+	public void testSharedAndDedicatedConsumersReadTheSameEntry() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CollectingAppenderFactory shared = new CollectingAppenderFactory();
+		shared.setLayoutPattern( "%m%n" );
+		final CollectingAppenderFactory dedicated = new CollectingAppenderFactory();
+		dedicated.setLayoutPattern( "%p %m%n" );
+		dedicated.setConsumer( "dedicated" );
+
+		final LoggerService loggerService = createLoggerService( 64,
+			new GFLoggerBuilder( LogLevel.INFO, "com.db", shared, dedicated ), shared, dedicated );
+		GFLogFactory.init( loggerService );
+
+		// both consumers format every entry at the same time
+		final int count = 10000;
+		final StringBuilder expectedShared = new StringBuilder();
+		final StringBuilder expectedDedicated = new StringBuilder();
+		for ( int i = 0; i < count; i++ ) {
+			log.info().append( "message #" ).append( i ).append( " of the load" ).commit();
+			expectedShared.append( "message #" ).append( i ).append( " of the load" ).append( Layout.LINE_SEP );
+			expectedDedicated.append( "INFO message #" ).append( i ).append( " of the load" ).append( Layout.LINE_SEP );
+		}
+
+		GFLogFactory.stop();
+
+		assertEquals( expectedShared.toString(), shared.output.toString() );
+		assertEquals( expectedDedicated.toString(), dedicated.output.toString() );
+	}
+
+	@Test
+	public void testFormatWorkers() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CollectingAppenderFactory factory = new CollectingAppenderFactory();
+		factory.setLayoutPattern( "%p %m%n" );
+		factory.setFormatWorkers( 3 );
+
+		final LoggerService loggerService = createLoggerService( 32,
+			new GFLoggerBuilder( LogLevel.INFO, "com.db", factory ), factory );
+		GFLogFactory.init( loggerService );
+
+		final int count = 100;
+		final StringBuilder expected = new StringBuilder();
+		for ( int i = 0; i < count; i++ ) {
+			log.info().append( "message " ).append( i ).commit();
+			expected.append( "INFO message " ).append( i ).append( Layout.LINE_SEP );
+		}
+
+		GFLogFactory.stop();
+
+		// entries are formatted by workers, but they are written in order
+		assertEquals( expected.toString(), factory.output.toString() );
+		assertEquals( count, factory.preformatted.get() );
+	}
+
+	@Test
+	public void testPriorityLane() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CollectingAppenderFactory factory = new CollectingAppenderFactory();
+		factory.setLayoutPattern( "%p %m%n" );
+		factory.entered = new CountDownLatch( 1 );
+		factory.release = new CountDownLatch( 1 );
+
+		System.setProperty( "gflogger.priority.level", "ERROR" );
+		final LoggerService loggerService;
+		try {
+			loggerService = createLoggerService( 32,
+				new GFLoggerBuilder( LogLevel.INFO, "com.db", factory ), factory );
+		} finally {
+			System.clearProperty( "gflogger.priority.level" );
+		}
+		GFLogFactory.init( loggerService );
+
+		log.info().append( "first" ).commit();
+		factory.entered.await();
+
+		// the consumer is blocked, records queue up behind it
+		log.info().append( "second" ).commit();
+		log.info().append( "third" ).commit();
+		log.error().append( "failure" ).commit();
+		factory.release.countDown();
+
+		GFLogFactory.stop();
+
+		assertEquals( "INFO first" + Layout.LINE_SEP
+			+ "ERROR failure" + Layout.LINE_SEP
+			+ "INFO second" + Layout.LINE_SEP
+			+ "INFO third" + Layout.LINE_SEP, factory.output.toString() );
+	}
+
+	@Test
+	public void testIdlePriorityLane() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CollectingAppenderFactory factory = new CollectingAppenderFactory();
+		factory.setLayoutPattern( "%p %m%n" );
+
+		System.setProperty( "gflogger.priority.level", "ERROR" );
+		final LoggerService loggerService;
+		try {
+			loggerService = createLoggerService( 32,
+				new GFLoggerBuilder( LogLevel.INFO, "com.db", factory ), factory );
+		} finally {
+			System.clearProperty( "gflogger.priority.level" );
+		}
+		GFLogFactory.init( loggerService );
+
+		// the lane is drained and flushed by the idle consumer
+		log.error().append( "failure" ).commit();
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while ( factory.output.length() == 0 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 1L );
+		}
+		assertEquals( "ERROR failure" + Layout.LINE_SEP, factory.output.toString() );
+
+		GFLogFactory.stop();
+	}
+
+	private static class CollectingAppenderFactory extends AbstractAppenderFactory<Appender> {
+		private final StringBuffer output = new StringBuffer();
+		private final AtomicLong preformatted = new AtomicLong();
+
+		// the consumer is blocked on the first entry until it is released
+		private CountDownLatch entered;
+		private CountDownLatch release;
+
+		@Override
+		public Appender createAppender( final Class<? extends LoggerService> loggerServiceClass ) {
+			preinit( loggerServiceClass );
+			final AbstractAsyncAppender appender = new AbstractAsyncAppender( "collecting", 1024, false, LogLevel.TRACE, true ) {
+				@Override
+				public void process( final LogEntryItemImpl entry ) {
+					if ( entered != null && entered.getCount() > 0 ) {
+						entered.countDown();
+						try {
+							release.await();
+						} catch ( InterruptedException e ) {
+							Thread.currentThread().interrupt();
+						}
+					}
+					super.process( entry );
+				}
+
+				@Override
+				public void process( final LogEntryItemImpl entry, final ByteBuffer formatted ) {
+					preformatted.incrementAndGet();
+					super.process( entry, formatted );
+				}
+
+				@Override
+				public void flush( final boolean force ) {
+					byteBuffer.flip();
+					while ( byteBuffer.hasRemaining() ) {
+						output.append( (char) byteBuffer.get() );
+					}
+					byteBuffer.clear();
+				}
+			};
+			appender.setLayout( layout );
+			appender.setFormatWorkers( formatWorkers );
+			appender.setConsumer( AbstractAppender.Consumer.forName( consumer ) );
+			return appender;
+		}
+	}
+
+	private static class RecordingAppenderFactory extends AbstractAppenderFactory<Appender> {
+		private final String name;
+		private final CountDownLatch latch;
+
+		private final AtomicLong processed = new AtomicLong();
+		private final Set<Thread> threads = Collections.synchronizedSet( new HashSet<Thread>() );
+
+		RecordingAppenderFactory( final String name, final CountDownLatch latch ) {
+			this.name = name;
+			this.latch = latch;
+			setLogLevel( LogLevel.INFO );
+		}
+
+		@Override
+		public Appender createAppender( final Class<? extends LoggerService> loggerServiceClass ) {
+			final AbstractAsyncAppender appender = new AbstractAsyncAppender( name, 32, false, LogLevel.TRACE, true ) {
+				@Override
+				public void process( final LogEntryItemImpl entry ) {
+					threads.add( Thread.currentThread() );
+					if ( latch != null ) {
+						try {
+							latch.await();
+						} catch ( InterruptedException e ) {
+							Thread.currentThread().interrupt();
+						}
+					}
+					processed.incrementAndGet();
+				}
+
+				@Override
+				public void flush( final boolean force ) {}
+			};
+			appender.setConsumer( AbstractAppender.Consumer.forName( consumer ) );
+			return appender;
+		}
+	}
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gflogger.formatter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import org.junit.Test;
+
+/**
+ * BufferViewsTest
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class BufferViewsTest {
+
+	@Test
+	public void testPutDoesNotChangeSource() throws Exception {
+		final BufferViews views = new BufferViews();
+		final String message = "the message";
+		final ByteBuffer[] sources = {
+			BufferFormatter.allocate(64),
+			ByteBuffer.allocate(64),
+			ByteBuffer.allocateDirect(64)};
+		for (final ByteBuffer source : sources) {
+			BufferFormatter.append(source, message);
+			final ByteBuffer buffer = BufferFormatter.allocate(64);
+			views.put(buffer, source, source.position());
+			assertEquals(message.length(), source.position());
+			assertEquals(source.capacity(), source.limit());
+			assertEquals(message, BufferFormatterTest.toString(buffer));
+		}
+
+		final CharBuffer source = ByteBuffer.allocateDirect(128).asCharBuffer();
+		BufferFormatter.append(source, message);
+		final CharBuffer buffer = CharBuffer.allocate(64);
+		views.put(buffer, source, source.position());
+		assertEquals(message.length(), source.position());
+		assertEquals(message, BufferFormatterTest.toString(buffer));
+	}
+
+	@Test
+	public void testViewIsReused() throws Exception {
+		final BufferViews views = new BufferViews();
+		final ByteBuffer source = BufferFormatter.allocate(64);
+		final ByteBuffer buffer = BufferFormatter.allocate(64);
+
+		BufferFormatter.append(source, "a longer message");
+		views.put(buffer, source, source.position());
+		assertEquals("a longer message", BufferFormatterTest.toString(buffer));
+
+		// the view follows the next message of the same entry buffer
+		source.clear();
+		BufferFormatter.append(source, "short");
+		buffer.clear();
+		views.put(buffer, source, source.position());
+		assertEquals("short", BufferFormatterTest.toString(buffer));
+	}
+}
@@ -5,6 +5,8 @@ import org.gflogger.LogEntryItemImpl;
 import org.gflogger.formatting.StringFormattingStrategy;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.Locale;
 import java.util.TimeZone;
 
@@ -25,4 +27,43 @@ public class TestPatternParser {
 		item.getBuffer().put("Hello world!".getBytes());
 		assertEquals(12, converter.size(item));
 	}
+
+	@Test
+	public void testCategoryAbbreviation() throws Exception {
+		PatternParser parser = new PatternParser("%c{2}", Locale.getDefault(), TimeZone.getDefault());
+
+		final PatternConverter converter = parser.parse();
+		final LogEntryItemImpl item = new LogEntryItemImpl(1 << 10 , new StringFormattingStrategy());
+		final ByteBuffer buffer = ByteBuffer.allocate(1 << 10);
+		final CharBuffer charBuffer = CharBuffer.allocate(1 << 10);
+
+		final String[] categories = new String[100];
+		for (int i = 0; i < categories.length; i++) {
+			categories[i] = "org.gflogger.category" + i + ".Logger" + i;
+		}
+
+		// twice to hit the cache
+		for (int j = 0; j < 2; j++) {
+			for (int i = 0; i < categories.length; i++) {
+				item.setCategoryName(categories[i]);
+				final String expected = "category" + i + ".Logger" + i;
+				assertEquals(expected.length(), converter.size(item));
+
+				buffer.clear();
+				converter.format(buffer, item);
+				buffer.flip();
+				final byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+				assertEquals(expected, new String(bytes));
+
+				charBuffer.clear();
+				converter.format(charBuffer, item);
+				charBuffer.flip();
+				assertEquals(expected, charBuffer.toString());
+			}
+		}
+
+		item.setCategoryName("noPackage");
+		assertEquals("noPackage".length(), converter.size(item));
+	}
 }
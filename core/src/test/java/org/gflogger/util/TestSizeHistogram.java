@@ -0,0 +1,36 @@
+package org.gflogger.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/** @author vladimir.dolzhenko@gmail.com */
+public class TestSizeHistogram {
+
+	@Test
+	public void sizesAreCountedInPowerOf2Buckets() {
+		assertEquals( 0, SizeHistogram.bucketOf( 0 ) );
+		assertEquals( 1, SizeHistogram.bucketOf( 1 ) );
+		assertEquals( 2, SizeHistogram.bucketOf( 2 ) );
+		assertEquals( 2, SizeHistogram.bucketOf( 3 ) );
+		assertEquals( 11, SizeHistogram.bucketOf( 1024 ) );
+		assertEquals( 2048, SizeHistogram.upperBound( 11 ) );
+	}
+
+	@Test
+	public void percentiles() {
+		final SizeHistogram histogram = new SizeHistogram();
+		for ( int i = 0; i < 99; i++ ) {
+			histogram.record( 100 );
+		}
+		histogram.record( 5000 );
+
+		assertEquals( 100, histogram.getCount() );
+		assertEquals( 99, histogram.getCount( SizeHistogram.bucketOf( 100 ) ) );
+		assertEquals( 149, histogram.getMean() );
+		assertEquals( 5000, histogram.getMax() );
+		assertEquals( 128, histogram.getPercentile( 50 ) );
+		assertEquals( 128, histogram.getPercentile( 99 ) );
+		assertEquals( 5000, histogram.getPercentile( 100 ) );
+	}
+}
@@ -111,6 +111,30 @@ public class Log4jEntry implements GFLogEntry, FormattedGFLogEntry {
 		builder.setLength(0);
 	}
 
+	@Override
+	public GFLogEntry kv(String key, long value) {
+		this.builder.append(' ').append(key).append('=').append(value);
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(String key, double value) {
+		this.builder.append(' ').append(key).append('=').append(value);
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(String key, boolean value) {
+		this.builder.append(' ').append(key).append('=').append(value);
+		return this;
+	}
+
+	@Override
+	public GFLogEntry kv(String key, CharSequence value) {
+		this.builder.append(' ').append(key).append('=').append(value);
+		return this;
+	}
+
 	@Override
 	public GFLogEntry append(char c) {
 		this.builder.append(c);
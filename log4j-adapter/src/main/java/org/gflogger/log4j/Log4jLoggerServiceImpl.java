@@ -17,6 +17,8 @@ package org.gflogger.log4j;
 import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.LogManager;
+import org.gflogger.CallSite;
+import org.gflogger.DroppedEntries;
 import org.gflogger.FormattedGFLogEntry;
 import org.gflogger.GFLogEntry;
 import org.gflogger.GFLogger;
@@ -59,7 +61,7 @@ public class Log4jLoggerServiceImpl implements LoggerService {
 	}
 
 	@Override
-	public GFLogEntry log(LogLevel level, String categoryName, final long appenderMask) {
+	public GFLogEntry log(LogLevel level, String categoryName, final int[] appenderIndices) {
 		final Map<String, Log4jEntry> map = entries.get();
 		Log4jEntry entry = map.get(categoryName);
 		if (entry == null){
@@ -72,7 +74,7 @@ public class Log4jLoggerServiceImpl implements LoggerService {
 	}
 
 	@Override
-	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName, String pattern, final long appenderMask) {
+	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName, String pattern, final int[] appenderIndices) {
 		final Map<String, Log4jEntry> map = entries.get();
 		Log4jEntry entry = map.get(categoryName);
 		if (entry == null){
@@ -85,6 +87,32 @@ public class Log4jLoggerServiceImpl implements LoggerService {
 		return entry;
 	}
 
+	@Override
+	public GFLogEntry log(LogLevel level, String categoryName, CallSite callSite,
+		final int[] appenderIndices) {
+		// log4j resolves location on its own
+		return log(level, categoryName, appenderIndices);
+	}
+
+	@Override
+	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName,
+		CallSite callSite, String pattern, final int[] appenderIndices) {
+		return formattedLog(level, categoryName, pattern, appenderIndices);
+	}
+
+	@Override
+	public GFLogEntry tryLog(LogLevel level, String categoryName, CallSite callSite,
+		final int[] appenderIndices, final DroppedEntries dropped) {
+		// log4j appends in place, there is no ring to be full
+		return log(level, categoryName, appenderIndices);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryFormattedLog(LogLevel level, String categoryName,
+		CallSite callSite, String pattern, final int[] appenderIndices, final DroppedEntries dropped) {
+		return formattedLog(level, categoryName, pattern, appenderIndices);
+	}
+
 	@Override
 	public GFLogger[] lookupLoggers(String name) {
 		return GFLogger.EMPTY;
@@ -95,6 +123,16 @@ public class Log4jLoggerServiceImpl implements LoggerService {
 		// nothing
 	}
 
+	@Override
+	public void openScope(LogLevel threshold) {
+		// entries are passed to log4j as they are
+	}
+
+	@Override
+	public void closeScope() {
+		// nothing
+	}
+
 	@Override
 	public void stop() {
 		LogManager.shutdown();
@@ -0,0 +1,112 @@
+package org.gflogger.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.gflogger.disruptor.LoggerServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of a log call on the producer side depending on how caller location is captured:
+ * <ul>
+ *     <li><b>none</b> - layout does not render location at all</li>
+ *     <li><b>explicit</b> - layout renders location, call site is passed explicitly</li>
+ *     <li><b>implicit</b> - layout renders location, call site is resolved from the stack
+ *     (<code>gflogger.location.implicit</code> is on)</li>
+ * </ul>
+ * Appender discards the output, so that no real IO is involved.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+@BenchmarkMode( { Mode.AverageTime } )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@State( Scope.Benchmark )
+public class LocationBenchmark {
+
+	private static final CallSite CALL_SITE = CallSite.here();
+
+	public static final int MAX_MESSAGE_SIZE = 1 << 7;
+
+	public static final int COUNT = 1 << 10;
+
+	@Param( { "none", "explicit", "implicit" } )
+	public String location;
+
+	public GFLog gflog;
+
+	public CallSite callSite;
+
+	@Setup
+	public void setup() throws Exception {
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLogLevel( LogLevel.INFO );
+		factory.setOutputStream( new NullAppendable() );
+		factory.setLayoutPattern( "none".equals( location )
+				? "%d{HH:mm:ss,SSS} %p %m [%c{2}]%n"
+				: "%d{HH:mm:ss,SSS} %p %m [%c{2}] %C{1}.%M:%L%n" );
+
+		final AppenderFactory[] factories = { factory };
+		final GFLoggerBuilder[] loggers = {
+				new GFLoggerBuilder(
+						LogLevel.INFO,
+						"com.db",
+						factories
+				)
+		};
+
+		System.setProperty( "gflogger.location.implicit", Boolean.toString( "implicit".equals( location ) ) );
+		try {
+			GFLogFactory.init( new LoggerServiceImpl( COUNT, MAX_MESSAGE_SIZE, loggers, factories ) );
+		} finally {
+			System.clearProperty( "gflogger.location.implicit" );
+		}
+
+		this.gflog = GFLogFactory.getLog( "com.db.fxpricing.Logger" );
+		this.callSite = "explicit".equals( location ) ? CALL_SITE : null;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		GFLogFactory.stop();
+	}
+
+	@Benchmark
+	public void log() {
+		gflog.info( callSite ).append( "value=" ).append( 5L ).commit();
+	}
+
+	private static final class NullAppendable implements Appendable {
+		@Override
+		public Appendable append( final CharSequence csq ) {
+			return this;
+		}
+
+		@Override
+		public Appendable append( final CharSequence csq, final int start, final int end ) {
+			return this;
+		}
+
+		@Override
+		public Appendable append( final char c ) {
+			return this;
+		}
+	}
+
+	public static void main(String[] args) throws Throwable {
+		Options opts = new OptionsBuilder()
+				.include( LocationBenchmark.class.getSimpleName() )
+				.warmupIterations(5)
+				.measurementIterations(5)
+				.jvmArgs("-server")
+				.forks(1)
+				.build();
+
+		new Runner(opts).run();
+	}
+}